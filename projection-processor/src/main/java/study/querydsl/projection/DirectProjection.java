@@ -0,0 +1,15 @@
+package study.querydsl.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 생성자에 붙이면 같은 패키지에 {@code <클래스명>Projection} 을 생성한다.
+ * 생성된 클래스는 Querydsl FactoryExpression 으로, 행마다 리플렉션 없이 이 생성자를 직접 호출한다.
+ */
+@Target(ElementType.CONSTRUCTOR)
+@Retention(RetentionPolicy.SOURCE)
+public @interface DirectProjection {
+}
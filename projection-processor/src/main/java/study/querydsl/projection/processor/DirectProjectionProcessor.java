@@ -0,0 +1,126 @@
+package study.querydsl.projection.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * {@code @DirectProjection} 생성자마다 FactoryExpressionBase 구현을 생성한다.
+ * newInstance 는 인자를 캐스팅해서 생성자를 직접 호출하므로 Projections.bean/fields/constructor 와 달리 리플렉션을 쓰지 않는다.
+ */
+@SupportedAnnotationTypes("study.querydsl.projection.DirectProjection")
+public class DirectProjectionProcessor extends AbstractProcessor {
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.CONSTRUCTOR) {
+					continue;
+				}
+				ExecutableElement constructor = (ExecutableElement)element;
+				TypeElement type = (TypeElement)constructor.getEnclosingElement();
+				if (type.getNestingKind() != NestingKind.TOP_LEVEL || constructor.getModifiers().contains(Modifier.PRIVATE)) {
+					error(constructor, "@DirectProjection 은 최상위 클래스의 private 이 아닌 생성자에만 사용할 수 있습니다.");
+					continue;
+				}
+				try {
+					generate(type, constructor);
+				} catch (IOException e) {
+					error(constructor, "projection 클래스를 생성하지 못했습니다: " + e.getMessage());
+				}
+			}
+		}
+		return true;
+	}
+
+	private void generate(TypeElement type, ExecutableElement constructor) throws IOException {
+		String packageName = ((PackageElement)type.getEnclosingElement()).getQualifiedName().toString();
+		String typeName = type.getSimpleName().toString();
+		String projectionName = typeName + "Projection";
+
+		List<String> parameters = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		List<String> casts = new ArrayList<>();
+		List<? extends VariableElement> elements = constructor.getParameters();
+		for (int i = 0; i < elements.size(); i++) {
+			VariableElement parameter = elements.get(i);
+			String boxed = boxedName(parameter.asType());
+			String name = parameter.getSimpleName().toString();
+			parameters.add("Expression<" + boxed + "> " + name);
+			names.add(name);
+			casts.add("(" + boxed + ")args[" + i + "]");
+		}
+
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("import java.util.List;\n\n")
+			.append("import javax.annotation.processing.Generated;\n\n")
+			.append("import com.querydsl.core.types.Expression;\n")
+			.append("import com.querydsl.core.types.FactoryExpressionBase;\n")
+			.append("import com.querydsl.core.types.Visitor;\n\n")
+			.append("@Generated(\"").append(getClass().getName()).append("\")\n")
+			.append("public final class ").append(projectionName)
+			.append(" extends FactoryExpressionBase<").append(typeName).append("> {\n\n")
+			.append("\tprivate static final long serialVersionUID = 1L;\n\n")
+			.append("\tprivate final List<Expression<?>> args;\n\n")
+			.append("\tpublic ").append(projectionName).append("(").append(String.join(", ", parameters)).append(") {\n")
+			.append("\t\tsuper(").append(typeName).append(".class);\n")
+			.append("\t\tthis.args = List.of(").append(String.join(", ", names)).append(");\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic List<Expression<?>> getArgs() {\n")
+			.append("\t\treturn args;\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic ").append(typeName).append(" newInstance(Object... args) {\n")
+			.append("\t\treturn new ").append(typeName).append("(").append(String.join(", ", casts)).append(");\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic <R, C> R accept(Visitor<R, C> v, C context) {\n")
+			.append("\t\treturn v.visit(this, context);\n")
+			.append("\t}\n")
+			.append("}\n");
+
+		String qualifiedName = packageName.isEmpty() ? projectionName : packageName + "." + projectionName;
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+			writer.write(source.toString());
+		}
+	}
+
+	private String boxedName(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass((PrimitiveType)type).getQualifiedName().toString();
+		}
+		return type.toString();
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+}
@@ -0,0 +1,33 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import study.querydsl.QuerydslApplication;
+
+/**
+ * JMH 벤치마크용으로 웹 서버 없이 인메모리 H2 애플리케이션 컨텍스트를 띄운다. 회원은 MemberSeedData 로 채운다.
+ * local 프로필의 InitMember 샘플 데이터가 섞이지 않도록 bench 프로필로 띄우고, SQL 로그와 p6spy 는 측정을 흐리므로 끈다.
+ * 측정 도중 member 전체를 다시 읽는 주기 작업(컬럼 스냅샷, Bloom filter 재구성)이 끼어들지 않도록 스케줄링도 끈다.
+ */
+public final class BenchmarkApplication {
+
+	private BenchmarkApplication() {
+	}
+
+	public static ConfigurableApplicationContext start(String name) {
+		return new SpringApplicationBuilder(QuerydslApplication.class)
+			.web(WebApplicationType.NONE)
+			.properties(
+				"spring.profiles.active=bench",
+				"spring.datasource.url=jdbc:h2:mem:bench-" + name + ";DB_CLOSE_DELAY=-1",
+				"spring.jpa.properties.hibernate.format_sql=false",
+				"spring.jpa.properties.hibernate.use_sql_comments=false",
+				"decorator.datasource.enabled=false",
+				"querydsl.scheduling.enabled=false",
+				"logging.level.root=warn",
+				"logging.level.org.hibernate.SQL=warn")
+			.run();
+	}
+}
@@ -0,0 +1,81 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberColumnarRepository;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 같은 검색 조건을 MemberRepositoryImpl(Querydsl JPA) 과 MemberColumnarRepository(메모리 스냅샷) 로 처리하는 시간을 비교한다.
+ * 결과가 같은지는 MemberColumnarRepositoryTest 가 확인하고, 여기서는 시간만 잰다.
+ * 스냅샷 행 수와 추정 바이트는 셋업 때 한 번 출력한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=ColumnarSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ColumnarSearchBenchmark {
+
+	@Param("100000")
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+	private TransactionTemplate transactionTemplate;
+	private MemberRepository memberRepository;
+	private MemberColumnarRepository memberColumnarRepository;
+	private MemberSearchCondition condition;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("columnar");
+		MemberSeedData.seed(context, rows);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		transactionTemplate.setReadOnly(true);
+		memberRepository = context.getBean(MemberRepository.class);
+		memberColumnarRepository = context.getBean(MemberColumnarRepository.class);
+		memberColumnarRepository.rebuild();
+		System.out.println("snapshot rows = " + memberColumnarRepository.getSnapshot().size()
+			+ ", snapshot bytes = " + memberColumnarRepository.getSnapshot().estimatedBytes());
+
+		condition = new MemberSearchCondition();
+		condition.setTeamName("team7");
+		condition.setAgeGoe(20);
+		condition.setAgeLoe(40);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> jpa() {
+		return transactionTemplate.execute(status -> memberRepository.search(condition));
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> columnar() {
+		return transactionTemplate.execute(status -> memberColumnarRepository.search(condition));
+	}
+}
@@ -0,0 +1,88 @@
+package study.querydsl.benchmark;
+
+import static com.querydsl.jpa.JPAExpressions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.MemberAnalyticsRepository;
+
+/**
+ * 팀 평균 나이 이상인 회원을 JPQL 상관 서브쿼리와 MemberAnalyticsRepository 의 윈도우 함수로 찾는 시간을 비교한다.
+ * 두 결과가 같은지는 MemberAnalyticsRepositoryTest 가 확인한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=MemberAnalyticsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MemberAnalyticsBenchmark {
+
+	@Param("100000")
+	public int rows;
+
+	private final QMember memberSub = new QMember("memberSub");
+
+	private ConfigurableApplicationContext context;
+	private TransactionTemplate transactionTemplate;
+	private JPAQueryFactory queryFactory;
+	private MemberAnalyticsRepository memberAnalyticsRepository;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("analytics");
+		MemberSeedData.seed(context, rows);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		transactionTemplate.setReadOnly(true);
+		queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+		memberAnalyticsRepository = context.getBean(MemberAnalyticsRepository.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> correlatedSubquery() {
+		return transactionTemplate.execute(status -> queryFactory
+			.select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+			.from(member)
+			.join(member.team, team)
+			.where(member.age.goe(select(memberSub.age.avg())
+				.from(memberSub)
+				.where(memberSub.team.eq(member.team))))
+			.fetch());
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> windowFunction() {
+		return transactionTemplate.execute(status -> memberAnalyticsRepository.findAtOrAboveTeamAverage());
+	}
+}
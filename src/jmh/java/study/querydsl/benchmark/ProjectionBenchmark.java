@@ -0,0 +1,119 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberDtoProjection;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
+import study.querydsl.dto.QMemberTeamDto;
+
+/**
+ * 프로젝션 방식별로 JDBC 결과 행(Object[]) 을 DTO 로 바꾸는 비용을 비교한다.
+ * DB 조회 비용을 빼기 위해 미리 만든 1M 행에 FactoryExpression.newInstance 만 반복 호출한다.
+ * 결과는 ops/s 가 곧 rows/sec 이고, gc 프로파일러의 gc.alloc.rate.norm 이 행당 할당 바이트다.
+ *
+ * ./gradlew jmh -Pjmh.includes=ProjectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+
+	private static final int ROWS = 1_000_000;
+
+	private final FactoryExpression<MemberDto> bean = Projections.bean(MemberDto.class,
+		member.username, member.age);
+	private final FactoryExpression<MemberDto> fields = Projections.fields(MemberDto.class,
+		member.username, member.age);
+	private final FactoryExpression<MemberDto> constructor = Projections.constructor(MemberDto.class,
+		member.username, member.age);
+	private final FactoryExpression<MemberDto> direct = new MemberDtoProjection(member.username, member.age);
+
+	private final FactoryExpression<MemberTeamDto> teamConstructor = Projections.constructor(MemberTeamDto.class,
+		member.id, member.username, member.age, team.id, team.name);
+	private final FactoryExpression<MemberTeamDto> queryProjection = new QMemberTeamDto(
+		member.id, member.username, member.age, team.id, team.name);
+	private final FactoryExpression<MemberTeamDto> teamDirect = new MemberTeamDtoProjection(
+		member.id, member.username, member.age, team.id, team.name);
+
+	private Object[][] memberRows;
+	private Object[][] memberTeamRows;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		memberRows = new Object[ROWS][];
+		memberTeamRows = new Object[ROWS][];
+		for (int i = 0; i < ROWS; i++) {
+			String username = "member" + i;
+			Integer age = i % 100;
+			memberRows[i] = new Object[] {username, age};
+			memberTeamRows[i] = new Object[] {(long)i, username, age, (long)(i % 10), "team" + (i % 10)};
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void memberDtoBean(Blackhole bh) {
+		map(bean, memberRows, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void memberDtoFields(Blackhole bh) {
+		map(fields, memberRows, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void memberDtoConstructor(Blackhole bh) {
+		map(constructor, memberRows, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void memberDtoDirect(Blackhole bh) {
+		map(direct, memberRows, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void memberTeamDtoConstructor(Blackhole bh) {
+		map(teamConstructor, memberTeamRows, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void memberTeamDtoQueryProjection(Blackhole bh) {
+		map(queryProjection, memberTeamRows, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void memberTeamDtoDirect(Blackhole bh) {
+		map(teamDirect, memberTeamRows, bh);
+	}
+
+	private void map(FactoryExpression<?> projection, Object[][] rows, Blackhole bh) {
+		for (Object[] row : rows) {
+			bh.consume(projection.newInstance(row));
+		}
+	}
+}
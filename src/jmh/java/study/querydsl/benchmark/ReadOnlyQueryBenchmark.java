@@ -0,0 +1,121 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 100k 회원을 엔티티로 읽을 때 관리 상태(스냅샷 + flush 시 dirty checking)와 읽기 전용 조회를 비교한다.
+ * managed 는 findAll_Querydsl 과 같이 읽기-쓰기 트랜잭션에서 힌트 없이 읽고, readOnly 는 findAll_QuerydslReadOnly 를 쓴다.
+ * 시간은 트랜잭션 커밋(flush)까지 포함한 쿼리 한 번이고, 행당 할당은 gc.alloc.rate.norm / rows 로 본다.
+ * *RetainedHeap 벤치마크는 시간 대신 결과를 쥔 채 GC 한 뒤의 힙 증가량을 retainedBytes 보조 카운터로 보고한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=ReadOnlyQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReadOnlyQueryBenchmark {
+
+	@Param("100000")
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+	private TransactionTemplate transactionTemplate;
+	private JPAQueryFactory queryFactory;
+	private MemberJpaRepository memberJpaRepository;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("readonly");
+		MemberSeedData.seed(context, rows);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int managed() {
+		return transactionTemplate.execute(status -> queryFactory.selectFrom(member).fetch().size());
+	}
+
+	@Benchmark
+	public int readOnly() {
+		return memberJpaRepository.findAll_QuerydslReadOnly().size();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	public void managedRetainedHeap(RetainedHeap heap) {
+		transactionTemplate.executeWithoutResult(status ->
+			heap.measure(() -> queryFactory.selectFrom(member).fetch()));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	public void readOnlyRetainedHeap(RetainedHeap heap) {
+		transactionTemplate.executeWithoutResult(status ->
+			heap.measure(memberJpaRepository::findAll_QuerydslReadOnly));
+	}
+
+	/**
+	 * 트랜잭션(영속성 컨텍스트)이 살아 있는 동안 결과 목록과 스냅샷이 붙잡고 있는 힙.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class RetainedHeap {
+
+		private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+		public long retainedBytes;
+
+		void measure(Supplier<List<Member>> query) {
+			long before = usedAfterGc();
+			List<Member> result = query.get();
+			retainedBytes = usedAfterGc() - before;
+			if (result.isEmpty()) {
+				throw new IllegalStateException("no rows");
+			}
+		}
+
+		private static long usedAfterGc() {
+			System.gc();
+			System.gc();
+			return MEMORY.getHeapMemoryUsage().getUsed();
+		}
+	}
+}
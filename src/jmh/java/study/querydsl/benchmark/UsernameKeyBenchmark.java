@@ -0,0 +1,100 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+
+/**
+ * 대소문자/기호를 무시하는 username 검색을 세 가지 방식으로 비교한다.
+ * usernameKey 는 인덱스가 있는 username_key 컬럼 비교, lower 와 replaceFunction 은 QuerydslBasicTest.sqlFunction 처럼
+ * username 을 함수로 감싸 비교하므로 인덱스를 못 타고 member 전체를 훑는다. 매 호출마다 임의의 회원 한 명을 찾는다.
+ *
+ * ./gradlew jmh -Pjmh.includes=UsernameKeyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class UsernameKeyBenchmark {
+
+	@Param("100000")
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+	private TransactionTemplate transactionTemplate;
+	private JPAQueryFactory queryFactory;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("username-key");
+		MemberSeedData.seed(context, rows);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		transactionTemplate.setReadOnly(true);
+		queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<String> usernameKey() {
+		String input = "Member_" + nextMember();
+		return transactionTemplate.execute(status -> queryFactory
+			.select(member.username)
+			.from(member)
+			.where(member.usernameKey.eq(Member.toUsernameKey(input)))
+			.fetch());
+	}
+
+	@Benchmark
+	public List<String> lower() {
+		String input = "MEMBER" + nextMember();
+		return transactionTemplate.execute(status -> queryFactory
+			.select(member.username)
+			.from(member)
+			.where(member.username.lower().eq(input.toLowerCase()))
+			.fetch());
+	}
+
+	@Benchmark
+	public List<String> replaceFunction() {
+		String input = "Member_" + nextMember();
+		return transactionTemplate.execute(status -> queryFactory
+			.select(member.username)
+			.from(member)
+			.where(Expressions.stringTemplate("function('replace', lower({0}), {1}, {2})",
+				member.username, "_", "").eq(input.toLowerCase().replace("_", "")))
+			.fetch());
+	}
+
+	private int nextMember() {
+		return ThreadLocalRandom.current().nextInt(rows);
+	}
+}
@@ -2,12 +2,20 @@ package study.querydsl;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
 
-@SpringBootApplication
+// R2DBC ConnectionFactory 빈이 생기면 JDBC DataSource 자동 설정이 꺼지므로 R2DBC 는 MemberReactiveRepository 가 직접 관리한다.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(QuerydslApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(QuerydslApplication.class, args);
+		// AppCDS 아카이브 생성(-XX:ArchiveClassesAtExit)용 학습 실행: 기동이 끝나면 바로 종료한다.
+		if (Boolean.getBoolean("querydsl.cds.training")) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
@@ -0,0 +1,103 @@
+package study.querydsl.bloom;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 문자열 Bloom filter. 비트는 AtomicLongArray 에 두고 OR 로만 켜므로 put 과 mightContain 을 락 없이 동시에 호출할 수 있다.
+ * 해시는 64비트 해시 두 개로 h1 + i * h2 를 만들어 k 개 위치로 쓴다(Kirsch-Mitzenmacher).
+ */
+public class BloomFilter {
+
+	private static final double LN2 = Math.log(2);
+
+	private final AtomicLongArray words;
+	private final long bitSize;
+	private final int hashCount;
+	private final LongAdder insertions = new LongAdder();
+
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long n = Math.max(1, expectedInsertions);
+		long bits = (long)Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+		int wordCount = (int)Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+		this.words = new AtomicLongArray(wordCount);
+		this.bitSize = wordCount * 64L;
+		this.hashCount = Math.max(1, (int)Math.round((double)bitSize / n * LN2));
+	}
+
+	public void put(String value) {
+		long h1 = hash(value);
+		long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = index(h1 + i * h2);
+			int word = (int)(bit >>> 6);
+			long mask = 1L << bit;
+			long current = words.get(word);
+			while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+				current = words.get(word);
+			}
+		}
+		insertions.increment();
+	}
+
+	public boolean mightContain(String value) {
+		long h1 = hash(value);
+		long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = index(h1 + i * h2);
+			if ((words.get((int)(bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * put 횟수 기준 이론상 오탐률 (1 - e^(-kn/m))^k. 같은 값을 여러 번 넣었다면 실제보다 높게 나온다.
+	 */
+	public double expectedFalsePositiveRate() {
+		return Math.pow(1 - Math.exp(-hashCount * (double)insertions.sum() / bitSize), hashCount);
+	}
+
+	public long getInsertions() {
+		return insertions.sum();
+	}
+
+	public long getBitSize() {
+		return bitSize;
+	}
+
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	public long getSizeInBytes() {
+		return bitSize / 8;
+	}
+
+	private long index(long combined) {
+		return (combined & Long.MAX_VALUE) % bitSize;
+	}
+
+	/**
+	 * UTF-8 바이트에 대한 FNV-1a 64 를 murmur3 fmix64 로 섞는다.
+	 */
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,272 @@
+package study.querydsl.bloom;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.entity.Member;
+import study.querydsl.event.EntityChangeBus;
+import study.querydsl.event.EntityChangeEvent;
+
+/**
+ * Member.username 에 대한 Bloom filter. 없는 username 조회를 DB 에 가지 않고 빈 결과로 끝내는 데 쓴다.
+ * filter 가 완전하다고 보장할 수 있을 때만 생략해야 하므로 기본값은 판정과 지표만 남기는 모드이고,
+ * querydsl.username-filter.short-circuit=true 는 member 를 쓰는 노드가 하나이고 username 을 바꾸는 벌크 연산이
+ * 모두 ChangeCapturingJPAQueryFactory 를 거칠 때만 켠다. 다른 노드의 insert 나 JPQL/native update 는 filter 에 보이지 않는다.
+ * 기본 모드에서는 filter 가 없다고 했는데 조회 결과가 있던 경우를 false_negative 로 세므로 켜기 전에 확인할 수 있다.
+ * 기동이 끝나면 member 를 스트리밍으로 훑어 만들고, 이후 Hibernate insert/update 마다 새 username 을 넣는다.
+ * 벌크 update 로 username 이 바뀌면 재구성이 끝날 때까지 모든 username 을 "있을 수 있음" 으로 본다.
+ * 재구성 스캔은 아직 커밋되지 않은 insert 를 보지 못하므로, 교체 후 settle-delay 동안 이전 filter 도 함께 확인하고
+ * 그 뒤 한 번 더 훑어 새 filter 에 채운 다음 이전 filter 를 버린다. settle-delay 는 가장 긴 트랜잭션보다 길어야 한다.
+ * Hibernate 를 거치지 않고 member 를 쓰는 코드(JDBC 적재 등)는 rebuild() 를 직접 호출해야 한다.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class UsernameBloomFilter implements PostInsertEventListener, PostUpdateEventListener {
+
+	private static final int FETCH_SIZE = 1_000;
+
+	private final EntityManagerFactory emf;
+	private final JdbcTemplate jdbcTemplate;
+	private final long expectedInsertions;
+	private final double falsePositiveRate;
+	private final long settleDelayMillis;
+	private final boolean shortCircuit;
+	private final Counter misses;
+	private final Counter hits;
+	private final Counter falsePositives;
+	private final Counter falseNegatives;
+
+	private volatile BloomFilter filter;
+	private volatile BloomFilter building;
+	private volatile BloomFilter previous;
+	private volatile long settleAtMillis;
+	private volatile boolean stale = true;
+
+	public UsernameBloomFilter(EntityManagerFactory emf, JdbcTemplate jdbcTemplate, EntityChangeBus changeBus,
+		MeterRegistry meterRegistry,
+		@Value("${querydsl.username-filter.expected-insertions:1000000}") long expectedInsertions,
+		@Value("${querydsl.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+		@Value("${querydsl.username-filter.settle-delay:PT1M}") Duration settleDelay,
+		@Value("${querydsl.username-filter.short-circuit:false}") boolean shortCircuit) {
+		this.emf = emf;
+		this.jdbcTemplate = jdbcTemplate;
+		this.expectedInsertions = expectedInsertions;
+		this.falsePositiveRate = falsePositiveRate;
+		this.settleDelayMillis = settleDelay.toMillis();
+		this.shortCircuit = shortCircuit;
+		this.misses = lookupCounter(meterRegistry, "miss");
+		this.hits = lookupCounter(meterRegistry, "hit");
+		this.falsePositives = lookupCounter(meterRegistry, "false_positive");
+		this.falseNegatives = lookupCounter(meterRegistry, "false_negative");
+		Gauge.builder("member.username_filter.bytes", this,
+				self -> self.filter == null ? 0 : self.filter.getSizeInBytes())
+			.description("Bloom filter 비트 배열 크기")
+			.baseUnit("bytes")
+			.register(meterRegistry);
+		Gauge.builder("member.username_filter.expected_fpp", this,
+				self -> self.filter == null ? 0 : self.filter.expectedFalsePositiveRate())
+			.description("현재 put 횟수 기준 이론상 오탐률")
+			.register(meterRegistry);
+		Gauge.builder("member.username_filter.observed_fpp", this, UsernameBloomFilter::observedFalsePositiveRate)
+			.description("filter 가 있다고 했지만 조회 결과가 비어 있던 비율")
+			.register(meterRegistry);
+
+		changeBus.subscribe(events -> {
+			if (events.stream().anyMatch(event -> event.getEntityType() == Member.class
+				&& event.getType() == EntityChangeEvent.Type.BULK_UPDATE
+				&& event.getChangedFields().contains("username"))) {
+				stale = true;
+			}
+		});
+	}
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+	}
+
+	/**
+	 * false 면 그 username 을 가진 회원은 확실히 없다. null 은 filter 에 넣지 않으므로 판정하지 않고 true 를 돌려준다.
+	 */
+	public boolean mightContain(String username) {
+		BloomFilter current = filter;
+		BloomFilter settling = previous;
+		return username == null || stale || current == null || current.mightContain(username)
+			|| settling != null && settling.mightContain(username);
+	}
+
+	/**
+	 * 조회를 생략해도 되는지 판단한다. short-circuit 이 꺼져 있으면 판정만 세고 항상 false 다.
+	 * 현재 트랜잭션(또는 OSIV)의 영속성 컨텍스트에 엔티티가 있으면 flush 전 insert/변경이 있을 수 있으므로 조회한다.
+	 */
+	public boolean definitelyAbsent(String username) {
+		if (mightContain(username)) {
+			return false;
+		}
+		misses.increment();
+		return shortCircuit && !hasManagedEntities();
+	}
+
+	/**
+	 * 실제로 조회한 결과를 알려 주면 filter 판정과 비교해 오탐/미탐을 집계한다.
+	 * found 는 그 username 을 가진 회원이 있는지다. 다른 조건이 섞여 결과가 비었다면 알 수 없으므로 부르지 않는다.
+	 */
+	public void recordLookup(String username, boolean found) {
+		if (mightContain(username)) {
+			(found ? hits : falsePositives).increment();
+		} else if (found) {
+			falseNegatives.increment();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${querydsl.username-filter.refresh-delay:PT1S}")
+	public void rebuildIfStale() {
+		if (stale) {
+			rebuild();
+		} else if (settleAtMillis != 0 && System.currentTimeMillis() >= settleAtMillis) {
+			settle();
+		}
+	}
+
+	/**
+	 * 새 filter 를 만들어 통째로 바꾼다. 훑는 동안 들어온 username 은 building 에도 넣으므로 빠지지 않는다.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${querydsl.username-filter.rebuild-interval:PT10M}",
+		initialDelayString = "${querydsl.username-filter.rebuild-interval:PT10M}")
+	public synchronized void rebuild() {
+		stale = false;
+		Long count = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+		BloomFilter next = new BloomFilter(Math.max(expectedInsertions, count == null ? 0 : count * 2),
+			falsePositiveRate);
+		building = next;
+		try {
+			scanInto(next);
+			previous = filter;
+			filter = next;
+			settleAtMillis = System.currentTimeMillis() + settleDelayMillis;
+		} catch (RuntimeException e) {
+			stale = true;
+			throw e;
+		} finally {
+			building = null;
+		}
+		log.info("username bloom filter rebuilt: {} usernames, {} bytes, k={}",
+			next.getInsertions(), next.getSizeInBytes(), next.getHashCount());
+	}
+
+	/**
+	 * 재구성 스캔 때 커밋 전이었던 username 을 다시 훑어 현재 filter 에 채우고 이전 filter 를 버린다.
+	 */
+	private synchronized void settle() {
+		BloomFilter current = filter;
+		settleAtMillis = 0;
+		scanInto(current);
+		previous = null;
+	}
+
+	private void scanInto(BloomFilter target) {
+		jdbcTemplate.query(con -> {
+			PreparedStatement statement = con.prepareStatement("select username from member");
+			statement.setFetchSize(FETCH_SIZE);
+			return statement;
+		}, rs -> {
+			String username = rs.getString(1);
+			if (username != null) {
+				target.put(username);
+			}
+		});
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (event.getEntity() instanceof Member) {
+			put(username(event.getPersister(), event.getState()));
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (event.getEntity() instanceof Member) {
+			put(username(event.getPersister(), event.getState()));
+		}
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	private void put(String username) {
+		if (username == null) {
+			return;
+		}
+		BloomFilter next = building;
+		BloomFilter current = filter;
+		if (current != null) {
+			current.put(username);
+		}
+		if (next != null) {
+			next.put(username);
+		}
+	}
+
+	private String username(EntityPersister persister, Object[] state) {
+		return (String)state[persister.getEntityMetamodel().getPropertyIndex("username")];
+	}
+
+	/**
+	 * isDirty() 처럼 영속성 컨텍스트 전체를 dirty checking 하지 않고 관리 중인 엔티티 수만 본다.
+	 * 트랜잭션에 묶인 EntityManager 가 없으면 조회도 새 EntityManager 로 하므로 flush 전 변경이 있을 수 없다.
+	 */
+	private boolean hasManagedEntities() {
+		EntityManagerHolder holder = (EntityManagerHolder)TransactionSynchronizationManager.getResource(emf);
+		return holder != null && holder.getEntityManager().unwrap(SessionImplementor.class)
+			.getPersistenceContextInternal()
+			.getNumberOfManagedEntities() > 0;
+	}
+
+	private double observedFalsePositiveRate() {
+		double found = hits.count();
+		double notFound = falsePositives.count();
+		return found + notFound == 0 ? 0 : notFound / (found + notFound);
+	}
+
+	private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("member.username_filter.lookups")
+			.description("username 조회에서 filter 판정 결과")
+			.tag("result", result)
+			.register(meterRegistry);
+	}
+}
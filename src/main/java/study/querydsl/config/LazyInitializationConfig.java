@@ -0,0 +1,19 @@
+package study.querydsl.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * spring.main.lazy-initialization 을 켠 경우에도 컨트롤러(와 그 의존 빈)는 기동 시점에 만들어서
+ * 첫 요청이 빈 생성 비용을 떠안지 않도록 한다.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+	@Bean
+	static LazyInitializationExcludeFilter eagerControllers() {
+		return (beanName, beanDefinition, beanType) -> beanType.isAnnotationPresent(RestController.class);
+	}
+}
@@ -0,0 +1,15 @@
+package study.querydsl.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 컬럼 스냅샷 재구성, username Bloom filter 재구성, write-behind flush 같은 @Scheduled 작업을 켠다.
+ * 벤치마크처럼 주기 작업이 측정을 흐리는 경우 querydsl.scheduling.enabled=false 로 끌 수 있다.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "querydsl.scheduling", name = "enabled", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -1,9 +1,14 @@
 package study.querydsl.controller;
 
 import java.util.List;
+import java.util.Objects;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import lombok.RequiredArgsConstructor;
 import study.querydsl.dto.MemberSearchCondition;
@@ -20,4 +25,13 @@ public class MemberController {
 	public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
 		return memberJpaRepository.search(condition);
 	}
+
+	@PostMapping("/v1/members/batch")
+	public List<List<MemberTeamDto>> searchMemberBatchV1(@RequestBody List<MemberSearchCondition> conditions) {
+		if (conditions.size() > MemberJpaRepository.MAX_BATCH_SIZE || conditions.stream().anyMatch(Objects::isNull)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+				"검색 조건은 null 없이 " + MemberJpaRepository.MAX_BATCH_SIZE + "개까지 보낼 수 있습니다.");
+		}
+		return memberJpaRepository.searchBatch(conditions);
+	}
 }
@@ -0,0 +1,107 @@
+package study.querydsl.controller;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.*;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberReactiveRepository;
+
+/**
+ * /v1/members/stream 을 Tomcat 과 별도 포트(querydsl.reactive.port)의 Reactor Netty 서버에서 WebFlux 함수형 엔드포인트로 제공한다.
+ * 소켓 쓰기가 논블로킹이라 클라이언트가 읽은 만큼만 Flux 에 요청이 올라가고, 그 요청이 R2DBC 커서의 fetch 까지 이어진다.
+ * R2DBC 저장소가 없는 데이터베이스(H2 외)에서는 501 을 돌려준다.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication
+public class MemberStreamServer implements SmartLifecycle {
+
+	private final ObjectProvider<MemberReactiveRepository> memberReactiveRepository;
+	private final ObjectMapper objectMapper;
+	private final int port;
+	private volatile DisposableServer server;
+
+	public MemberStreamServer(ObjectProvider<MemberReactiveRepository> memberReactiveRepository,
+		ObjectMapper objectMapper,
+		@Value("${querydsl.reactive.port:0}") int port) {
+		this.memberReactiveRepository = memberReactiveRepository;
+		this.objectMapper = objectMapper;
+		this.port = port;
+	}
+
+	RouterFunction<ServerResponse> routes() {
+		return RouterFunctions.route(GET("/v1/members/stream"), this::searchMemberStream);
+	}
+
+	private Mono<ServerResponse> searchMemberStream(ServerRequest request) {
+		MemberReactiveRepository repository = memberReactiveRepository.getIfAvailable();
+		if (repository == null) {
+			return ServerResponse.status(HttpStatus.NOT_IMPLEMENTED)
+				.contentType(MediaType.TEXT_PLAIN)
+				.bodyValue("R2DBC 검색은 H2 데이터베이스에서만 지원합니다.");
+		}
+		return request.bind(MemberSearchCondition.class)
+			.flatMap(condition -> ServerResponse.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(repository.search(condition), MemberTeamDto.class));
+	}
+
+	@Override
+	public void start() {
+		HttpHandler httpHandler = RouterFunctions.toHttpHandler(routes(), HandlerStrategies.builder()
+			.codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+			.build());
+		server = HttpServer.create()
+			.port(port)
+			.handle(new ReactorHttpHandlerAdapter(httpHandler))
+			.bindNow();
+		log.info("member stream server started on port {}", server.port());
+	}
+
+	@Override
+	public void stop() {
+		DisposableServer current = server;
+		server = null;
+		if (current != null) {
+			current.disposeNow();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return server != null;
+	}
+
+	/**
+	 * 실제로 열린 포트. querydsl.reactive.port=0 이면 기동 시 정해진다.
+	 */
+	public int getPort() {
+		DisposableServer current = server;
+		if (current == null) {
+			throw new IllegalStateException("member stream server is not running");
+		}
+		return current.port();
+	}
+}
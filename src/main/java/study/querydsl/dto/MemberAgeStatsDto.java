@@ -0,0 +1,40 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberAgeStatsDto {
+
+	private final long count;
+	private final long sum;
+	private final Integer min;
+	private final Integer max;
+
+	public MemberAgeStatsDto(long count, long sum, Integer min, Integer max) {
+		this.count = count;
+		this.sum = sum;
+		this.min = min;
+		this.max = max;
+	}
+
+	public static MemberAgeStatsDto empty() {
+		return new MemberAgeStatsDto(0, 0, null, null);
+	}
+
+	/**
+	 * 파티션별 부분 집계를 합친다. avg 는 합쳐진 sum / count 로 다시 계산한다.
+	 */
+	public MemberAgeStatsDto combine(MemberAgeStatsDto other) {
+		return new MemberAgeStatsDto(
+			count + other.count,
+			sum + other.sum,
+			min == null ? other.min : other.min == null ? min : Math.min(min, other.min),
+			max == null ? other.max : other.max == null ? max : Math.max(max, other.max));
+	}
+
+	public Double getAvg() {
+		return count == 0 ? null : (double)sum / count;
+	}
+}
@@ -2,6 +2,7 @@ package study.querydsl.dto;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import study.querydsl.projection.DirectProjection;
 
 @Data
 @NoArgsConstructor
@@ -9,6 +10,7 @@ public class MemberDto {
 	private String username;
 	private int age;
 
+	@DirectProjection
 	public MemberDto(String username, int age) {
 		this.username = username;
 		this.age = age;
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberRankDto {
+
+	private Long memberId;
+	private String username;
+	private int age;
+	private Long teamId;
+	private String teamName;
+	private long ageRank;
+	private double agePercentile;
+
+	public MemberRankDto(Long memberId, String username, int age, Long teamId, String teamName, long ageRank,
+		double agePercentile) {
+		this.memberId = memberId;
+		this.username = username;
+		this.age = age;
+		this.teamId = teamId;
+		this.teamName = teamName;
+		this.ageRank = ageRank;
+		this.agePercentile = agePercentile;
+	}
+}
@@ -6,6 +6,10 @@ import lombok.Data;
 public class MemberSearchCondition {
 
 	private String username;
+	/**
+	 * 대소문자, 공백, 기호를 무시하고 username 을 찾는다. Member.toUsernameKey 로 정규화해서 username_key 와 비교한다.
+	 */
+	private String usernameKey;
 	private String teamName;
 	private Integer ageGoe;
 	private Integer ageLoe;
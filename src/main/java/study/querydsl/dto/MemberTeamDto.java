@@ -3,6 +3,7 @@ package study.querydsl.dto;
 import com.querydsl.core.annotations.QueryProjection;
 
 import lombok.Data;
+import study.querydsl.projection.DirectProjection;
 
 @Data
 public class MemberTeamDto {
@@ -14,6 +15,7 @@ public class MemberTeamDto {
 	private String teamName;
 
 	@QueryProjection
+	@DirectProjection
 	public MemberTeamDto(Long memberId, String username, int age, Long itemId, String teamName) {
 		this.memberId = memberId;
 		this.username = username;
@@ -1,12 +1,20 @@
 package study.querydsl.entity;
 
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -15,17 +23,35 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = @Index(name = "idx_member_username_key", columnList = "username_key"))
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
+	/**
+	 * username_key 를 만들 때 지우는 문자. DB 의 생성 컬럼 식과 검색어 정규화(toUsernameKey)가 같은 정규식을 쓴다.
+	 */
+	public static final String USERNAME_KEY_STRIP_REGEX = "[^\\p{L}\\p{N}]";
+	public static final String USERNAME_KEY_EXPRESSION =
+		"regexp_replace(lower(username), '" + USERNAME_KEY_STRIP_REGEX + "', '')";
+	private static final Pattern USERNAME_KEY_STRIP = Pattern.compile(USERNAME_KEY_STRIP_REGEX);
+
 	@Id
 	@GeneratedValue
 	@Column(name = "member_id")
 	private Long id;
 	private String username;
+	/**
+	 * 대소문자와 공백/기호 차이를 없앤 username. DB 가 username 으로 계산하는 생성 컬럼이라 어떤 경로로 username 을
+	 * 바꿔도(JPQL/native 벌크 update 포함) 함께 바뀐다. insert/update 뒤에는 Hibernate 가 값을 다시 읽어 온다.
+	 */
+	@Setter(AccessLevel.NONE)
+	@Generated(GenerationTime.ALWAYS)
+	@Column(name = "username_key", insertable = false, updatable = false,
+		columnDefinition = "varchar(255) generated always as (" + USERNAME_KEY_EXPRESSION + ")")
+	private String usernameKey;
 	private int age;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -48,8 +74,19 @@ public class Member {
 		}
 	}
 
+	/**
+	 * 검색어를 username_key 와 같은 규칙으로 정규화한다. 소문자로 바꾸고 문자/숫자가 아닌 것을 모두 지운다.
+	 * "Member_1", "member 1", "MEMBER-1" 은 모두 "member1" 이 된다.
+	 */
+	public static String toUsernameKey(String username) {
+		return username == null ? null : USERNAME_KEY_STRIP.matcher(username.toLowerCase(Locale.ROOT)).replaceAll("");
+	}
+
 	public void changeTeam(Team team) {
+		if (this.team != null) {
+			this.team.removeMember(this);
+		}
 		this.team = team;
-		team.getMembers().add(this);
+		team.addMember(this);
 	}
 }
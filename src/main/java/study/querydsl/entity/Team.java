@@ -9,6 +9,10 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -19,7 +23,7 @@ import lombok.ToString;
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@ToString(of = {"id", "name"})
+@ToString(of = {"id", "name", "memberCount"})
 public class Team {
 
 	@Id
@@ -28,10 +32,33 @@ public class Team {
 	private Long id;
 	private String name;
 
+	/**
+	 * DB 값은 TeamMemberCountListener 와 ChangeCapturingJPAQueryFactory 의 벌크 연산이 증감 update 로만 바꾼다.
+	 * 엔티티 flush 로는 쓰지 않고, 다른 경로의 벌크 update/delete 는 반영하지 않는다.
+	 */
+	@Column(insertable = false, updatable = false, columnDefinition = "integer default 0 not null")
+	private int memberCount;
+
+	/**
+	 * 큰 팀을 통째로 읽지 않도록 EXTRA lazy 로 둔다. 팀 회원 목록은 MemberRepository.findByTeamId 로 페이지 단위로 조회한다.
+	 */
 	@OneToMany(mappedBy = "team")
+	@LazyCollection(LazyCollectionOption.EXTRA)
 	private List<Member> members = new ArrayList<>();
 
 	public Team(String name) {
 		this.name = name;
 	}
+
+	public void addMember(Member member) {
+		members.add(member);
+		memberCount++;
+	}
+
+	public void removeMember(Member member) {
+		memberCount--;
+		if (Hibernate.isInitialized(members)) {
+			members.remove(member);
+		}
+	}
 }
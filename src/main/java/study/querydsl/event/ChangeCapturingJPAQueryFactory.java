@@ -0,0 +1,280 @@
+package study.querydsl.event;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+
+import org.springframework.stereotype.Component;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 벌크 update/delete 를 실행할 때 영향받는 id 범위와 변경 필드를 EntityChangeBus 에 기록하는 JPAQueryFactory.
+ * Member 의 team 을 바꾸거나 Member 를 지우는 벌크 연산은 실행 전에 대상 행을 잠그고 팀별 증감을 구해
+ * 바뀐 팀에만 "member_count = member_count + ?" 를 적용한다. team 은 Team 값이나 null 로만 벌크 변경할 수 있다.
+ * id 범위는 잠근 행에서 구하고, 잠그지 않는 연산은 범위를 요청한 구독자가 있을 때만 같은 where 조건으로 min/max(id) 를 조회한다.
+ * 평범한 JPAQueryFactory 나 JPQL/native 로 실행한 벌크 연산은 이벤트도 member_count 증감도 남기지 않으므로
+ * Member/Team 을 벌크로 바꾸는 코드는 이 빈을 주입받아 쓴다.
+ */
+@Slf4j
+@Component
+public class ChangeCapturingJPAQueryFactory extends JPAQueryFactory {
+
+	private final EntityManager em;
+	private final EntityChangeBus changeBus;
+
+	public ChangeCapturingJPAQueryFactory(EntityManager em, EntityChangeBus changeBus) {
+		super(em);
+		this.em = em;
+		this.changeBus = changeBus;
+	}
+
+	@Override
+	public CapturingUpdateClause update(EntityPath<?> path) {
+		return new CapturingUpdateClause(path);
+	}
+
+	@Override
+	public CapturingDeleteClause delete(EntityPath<?> path) {
+		return new CapturingDeleteClause(path);
+	}
+
+	/**
+	 * 벌크 연산이 바꿀 Member 행을 잠그고 팀별 member_count 증감과 id 범위를 구한다. deleted 가 아니면 모두 newTeamId 로 옮겨 간다.
+	 */
+	private MemberCountChange lockAffectedMembers(EntityPath<?> entity, List<Predicate> where, boolean deleted,
+		Long newTeamId) {
+		NumberPath<Long> id = Expressions.numberPath(Long.class, entity, "id");
+		NumberPath<Long> teamId = Expressions.numberPath(Long.class, Expressions.path(Team.class, entity, "team"), "id");
+		List<Tuple> rows = new JPAQuery<>(em)
+			.select(id, teamId)
+			.from(entity)
+			.where(where.toArray(Predicate[]::new))
+			.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+			.fetch();
+		// 팀 번호 순서로 갱신해 동시에 도는 벌크 연산끼리 교착되지 않게 한다.
+		Map<Long, Integer> deltas = new TreeMap<>();
+		Long minId = null;
+		Long maxId = null;
+		for (Tuple row : rows) {
+			Long memberId = row.get(id);
+			minId = minId == null || memberId < minId ? memberId : minId;
+			maxId = maxId == null || memberId > maxId ? memberId : maxId;
+			Long oldTeamId = row.get(teamId);
+			if (!deleted && Objects.equals(oldTeamId, newTeamId)) {
+				continue;
+			}
+			if (oldTeamId != null) {
+				deltas.merge(oldTeamId, -1, Integer::sum);
+			}
+			if (!deleted && newTeamId != null) {
+				deltas.merge(newTeamId, 1, Integer::sum);
+			}
+		}
+		return new MemberCountChange(rows.size(), deltas, new IdRange(minId, maxId));
+	}
+
+	private void applyMemberCountChange(MemberCountChange change, long affectedRows) {
+		if (change.rows() != affectedRows) {
+			// 잠근 뒤에 조건을 만족하게 된 행까지 바뀌었다. 그 행의 이전 팀을 모르므로 전체를 다시 센다.
+			log.warn("bulk member change affected {} rows but {} were locked, recounting all teams",
+				affectedRows, change.rows());
+			em.createNativeQuery("update team set member_count = "
+					+ "(select count(*) from member m where m.team_id = team.team_id)")
+				.executeUpdate();
+			return;
+		}
+		change.deltas().forEach((teamId, delta) -> {
+			if (delta != 0) {
+				em.createNativeQuery(TeamMemberCountListener.INCREMENT_SQL)
+					.setParameter(1, delta)
+					.setParameter(2, teamId)
+					.executeUpdate();
+			}
+		});
+	}
+
+	private static Long teamIdOf(Object value) {
+		Object team = value instanceof Constant<?> constant ? constant.getConstant() : value;
+		if (team == null) {
+			return null;
+		}
+		if (team instanceof Team t && t.getId() != null) {
+			return t.getId();
+		}
+		throw new IllegalArgumentException("Member.team 은 영속 Team 값이나 null 로만 벌크 변경할 수 있습니다: " + value);
+	}
+
+	/**
+	 * 실행 전에 구한 id 범위. 잠근 행이 있으면 그 범위를 쓰고, 없으면 범위를 요청한 구독자가 있을 때만 따로 조회한다.
+	 */
+	private IdRange idRangeBefore(EntityPath<?> entity, List<Predicate> where, MemberCountChange countChange) {
+		if (countChange != null) {
+			return countChange.ids();
+		}
+		if (!changeBus.needsIdRange()) {
+			return null;
+		}
+		NumberPath<Long> id = Expressions.numberPath(Long.class, entity, "id");
+		Tuple range = new JPAQuery<>(em)
+			.select(id.min(), id.max())
+			.from(entity)
+			.where(where.toArray(Predicate[]::new))
+			.fetchOne();
+		return new IdRange(range.get(id.min()), range.get(id.max()));
+	}
+
+	/**
+	 * 바뀐 행이 있을 때만 기록한다. 잠근 행 수와 바뀐 행 수가 다르면 범위를 믿을 수 없으므로 범위 없이 기록한다.
+	 */
+	private void record(EntityPath<?> entity, EntityChangeEvent.Type type, Set<String> changedFields,
+		IdRange range, MemberCountChange countChange, long affectedRows) {
+		if (affectedRows == 0 || !changeBus.hasSubscribers()) {
+			return;
+		}
+		boolean exact = range != null && (countChange == null || countChange.rows() == affectedRows);
+		changeBus.record(EntityChangeEvent.bulk(entity.getType(), type, changedFields,
+			exact ? range.min() : null, exact ? range.max() : null));
+	}
+
+	public class CapturingUpdateClause extends JPAUpdateClause {
+
+		private final EntityPath<?> entity;
+		private final List<Predicate> where = new ArrayList<>();
+		private final Set<String> changedFields = new HashSet<>();
+		private boolean teamChanged;
+		private Long newTeamId;
+
+		private CapturingUpdateClause(EntityPath<?> entity) {
+			super(em, entity);
+			this.entity = entity;
+		}
+
+		@Override
+		public <T> CapturingUpdateClause set(Path<T> path, T value) {
+			changedFields.add(path.getMetadata().getName());
+			super.set(path, value);
+			captureTeam(path, value);
+			return this;
+		}
+
+		@Override
+		public <T> CapturingUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+			changedFields.add(path.getMetadata().getName());
+			super.set(path, expression);
+			captureTeam(path, expression);
+			return this;
+		}
+
+		@Override
+		public <T> CapturingUpdateClause setNull(Path<T> path) {
+			changedFields.add(path.getMetadata().getName());
+			super.setNull(path);
+			captureTeam(path, null);
+			return this;
+		}
+
+		@Override
+		public CapturingUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+			paths.forEach(path -> changedFields.add(path.getMetadata().getName()));
+			super.set(paths, values);
+			for (int i = 0; i < paths.size(); i++) {
+				captureTeam(paths.get(i), values.get(i));
+			}
+			return this;
+		}
+
+		@Override
+		public CapturingUpdateClause where(Predicate... o) {
+			for (Predicate predicate : o) {
+				if (predicate != null) {
+					where.add(predicate);
+				}
+			}
+			super.where(o);
+			return this;
+		}
+
+		private void captureTeam(Path<?> path, Object value) {
+			if (entity.getType() == Member.class && "team".equals(path.getMetadata().getName())) {
+				newTeamId = teamIdOf(value);
+				teamChanged = true;
+			}
+		}
+
+		@Override
+		public long execute() {
+			MemberCountChange countChange = teamChanged ? lockAffectedMembers(entity, where, false, newTeamId) : null;
+			IdRange range = idRangeBefore(entity, where, countChange);
+			long count = super.execute();
+			if (countChange != null) {
+				applyMemberCountChange(countChange, count);
+			}
+			record(entity, EntityChangeEvent.Type.BULK_UPDATE, changedFields, range, countChange, count);
+			return count;
+		}
+	}
+
+	public class CapturingDeleteClause extends JPADeleteClause {
+
+		private final EntityPath<?> entity;
+		private final List<Predicate> where = new ArrayList<>();
+
+		private CapturingDeleteClause(EntityPath<?> entity) {
+			super(em, entity);
+			this.entity = entity;
+		}
+
+		@Override
+		public CapturingDeleteClause where(Predicate... o) {
+			for (Predicate predicate : o) {
+				if (predicate != null) {
+					where.add(predicate);
+				}
+			}
+			super.where(o);
+			return this;
+		}
+
+		@Override
+		public long execute() {
+			MemberCountChange countChange = entity.getType() == Member.class
+				? lockAffectedMembers(entity, where, true, null) : null;
+			IdRange range = idRangeBefore(entity, where, countChange);
+			long count = super.execute();
+			if (countChange != null) {
+				applyMemberCountChange(countChange, count);
+			}
+			record(entity, EntityChangeEvent.Type.BULK_DELETE, Set.of(), range, countChange, count);
+			return count;
+		}
+	}
+
+	private record MemberCountChange(int rows, Map<Long, Integer> deltas, IdRange ids) {
+	}
+
+	private record IdRange(Long min, Long max) {
+	}
+}
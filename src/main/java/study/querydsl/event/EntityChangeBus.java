@@ -0,0 +1,102 @@
+package study.querydsl.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 프로세스 내부 변경 이벤트 버스.
+ * 트랜잭션 안에서 기록된 이벤트는 트랜잭션마다 모아두었다가 커밋된 뒤 한 번에 전달하고, 롤백되면 버린다.
+ * 구독자는 커밋한 스레드에서 동기로 호출되므로 무거운 작업은 구독자가 직접 다른 스레드로 넘겨야 한다.
+ */
+@Slf4j
+@Component
+public class EntityChangeBus {
+
+	private final List<Consumer<List<EntityChangeEvent>>> subscribers = new CopyOnWriteArrayList<>();
+	private final List<Consumer<List<EntityChangeEvent>>> idRangeSubscribers = new CopyOnWriteArrayList<>();
+
+	public Runnable subscribe(Consumer<List<EntityChangeEvent>> subscriber) {
+		subscribers.add(subscriber);
+		return () -> subscribers.remove(subscriber);
+	}
+
+	/**
+	 * 벌크 update/delete 이벤트의 minId/maxId 가 필요한 구독자. 이런 구독자가 있을 때만 벌크 연산 전에 id 범위를 따로 조회한다.
+	 */
+	public Runnable subscribeWithIdRange(Consumer<List<EntityChangeEvent>> subscriber) {
+		idRangeSubscribers.add(subscriber);
+		Runnable unsubscribe = subscribe(subscriber);
+		return () -> {
+			unsubscribe.run();
+			idRangeSubscribers.remove(subscriber);
+		};
+	}
+
+	public boolean hasSubscribers() {
+		return !subscribers.isEmpty();
+	}
+
+	public boolean needsIdRange() {
+		return !idRangeSubscribers.isEmpty();
+	}
+
+	public void record(EntityChangeEvent event) {
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publish(List.of(event));
+			return;
+		}
+
+		currentBatch().events.add(event);
+	}
+
+	/**
+	 * 현재 트랜잭션에 등록된 배치를 찾고, 없으면 새로 등록한다.
+	 * 리소스로 묶어 두면 REQUIRES_NEW 안에서도 바깥 트랜잭션의 배치가 보이므로, 트랜잭션마다 따로 관리되는 synchronization 목록에서 찾는다.
+	 */
+	private Batch currentBatch() {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			if (synchronization instanceof Batch batch && batch.owner() == this) {
+				return batch;
+			}
+		}
+		Batch batch = new Batch();
+		TransactionSynchronizationManager.registerSynchronization(batch);
+		return batch;
+	}
+
+	private void publish(List<EntityChangeEvent> events) {
+		List<EntityChangeEvent> batch = List.copyOf(events);
+		for (Consumer<List<EntityChangeEvent>> subscriber : subscribers) {
+			try {
+				subscriber.accept(batch);
+			} catch (RuntimeException e) {
+				log.warn("entity change subscriber failed", e);
+			}
+		}
+	}
+
+	private class Batch implements TransactionSynchronization {
+
+		private final List<EntityChangeEvent> events = new ArrayList<>();
+
+		private EntityChangeBus owner() {
+			return EntityChangeBus.this;
+		}
+
+		@Override
+		public void afterCommit() {
+			publish(events);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package study.querydsl.event;
+
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 커밋된 엔티티 변경 한 건.
+ * 엔티티 단위 변경은 entityId 를, 벌크 update/delete 는 영향받은 id 범위(minId ~ maxId)를 가진다.
+ * 벌크 이벤트는 한 행 이상 바뀐 경우에만 기록되고, id 범위는 범위를 요청한 구독자가 있거나 대상 행을 잠근 경우에만 채운다.
+ * 범위가 null 이면 어느 행이 바뀌었는지 모르는 것이므로 전체가 바뀌었다고 본다.
+ */
+@Getter
+@ToString
+public class EntityChangeEvent {
+
+	public enum Type {
+		INSERT, UPDATE, DELETE, BULK_UPDATE, BULK_DELETE
+	}
+
+	private final Class<?> entityType;
+	private final Type type;
+	private final Long entityId;
+	private final Set<String> changedFields;
+	private final Long minId;
+	private final Long maxId;
+
+	private EntityChangeEvent(Class<?> entityType, Type type, Long entityId, Set<String> changedFields,
+		Long minId, Long maxId) {
+		this.entityType = entityType;
+		this.type = type;
+		this.entityId = entityId;
+		this.changedFields = Set.copyOf(changedFields);
+		this.minId = minId;
+		this.maxId = maxId;
+	}
+
+	public static EntityChangeEvent entity(Class<?> entityType, Type type, Long entityId, Set<String> changedFields) {
+		return new EntityChangeEvent(entityType, type, entityId, changedFields, entityId, entityId);
+	}
+
+	public static EntityChangeEvent bulk(Class<?> entityType, Type type, Set<String> changedFields,
+		Long minId, Long maxId) {
+		return new EntityChangeEvent(entityType, type, null, changedFields, minId, maxId);
+	}
+
+	public boolean isBulk() {
+		return type == Type.BULK_UPDATE || type == Type.BULK_DELETE;
+	}
+
+	public boolean hasIdRange() {
+		return minId != null;
+	}
+}
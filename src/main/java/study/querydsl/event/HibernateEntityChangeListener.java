@@ -0,0 +1,87 @@
+package study.querydsl.event;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * flush 시점의 insert/update/delete 를 EntityChangeBus 에 기록한다. 실제 전달은 커밋 이후다.
+ * 아무도 주입받지 않는 빈이므로 지연 초기화 대상에서 제외해야 리스너가 등록된다.
+ */
+@Lazy(false)
+@Component
+@RequiredArgsConstructor
+public class HibernateEntityChangeListener
+	implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	private final EntityManagerFactory emf;
+	private final EntityChangeBus changeBus;
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		EntityPersister persister = event.getPersister();
+		changeBus.record(EntityChangeEvent.entity(persister.getMappedClass(), EntityChangeEvent.Type.INSERT,
+			toLong(event.getId()), Set.of(persister.getPropertyNames())));
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		EntityPersister persister = event.getPersister();
+		String[] propertyNames = persister.getPropertyNames();
+		int[] dirtyProperties = event.getDirtyProperties();
+		Set<String> changedFields = new HashSet<>();
+		if (dirtyProperties == null) {
+			changedFields.addAll(Set.of(propertyNames));
+		} else {
+			for (int index : dirtyProperties) {
+				changedFields.add(propertyNames[index]);
+			}
+		}
+		changeBus.record(EntityChangeEvent.entity(persister.getMappedClass(), EntityChangeEvent.Type.UPDATE,
+			toLong(event.getId()), changedFields));
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		EntityPersister persister = event.getPersister();
+		changeBus.record(EntityChangeEvent.entity(persister.getMappedClass(), EntityChangeEvent.Type.DELETE,
+			toLong(event.getId()), Set.of()));
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	private Long toLong(Serializable id) {
+		return id instanceof Long value ? value : null;
+	}
+}
@@ -0,0 +1,116 @@
+package study.querydsl.event;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * Member insert/update/delete 가 flush 될 때 같은 트랜잭션에서 team.member_count 를 증감한다.
+ * 읽고 쓰는 대신 "member_count = member_count + ?" 한 문장으로 갱신하므로 동시에 같은 팀을 바꿔도 값을 잃지 않는다.
+ * flush 도중이라 JPA 쿼리를 만들면 다시 flush 가 일어나므로 세션의 JDBC 커넥션을 직접 쓴다.
+ */
+@Lazy(false)
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountListener
+	implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	static final String INCREMENT_SQL = "update team set member_count = member_count + ? where team_id = ?";
+	private static final String RECOUNT_SQL = "update team set member_count = "
+		+ "(select count(*) from member m where m.team_id = team.team_id) where team_id = ?";
+
+	private final EntityManagerFactory emf;
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (event.getEntity() instanceof Member) {
+			increment(event.getSession(), teamId(event.getPersister(), event.getState()), 1);
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (!(event.getEntity() instanceof Member)) {
+			return;
+		}
+		Long newTeamId = teamId(event.getPersister(), event.getState());
+		if (event.getOldState() == null) {
+			// 준영속 엔티티를 스냅샷 없이 update 한 경우: 이전 팀을 알 수 없으므로 새 팀만 다시 센다.
+			execute(event.getSession(), RECOUNT_SQL, newTeamId);
+			return;
+		}
+		Long oldTeamId = teamId(event.getPersister(), event.getOldState());
+		if (oldTeamId == null ? newTeamId != null : !oldTeamId.equals(newTeamId)) {
+			increment(event.getSession(), oldTeamId, -1);
+			increment(event.getSession(), newTeamId, 1);
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (event.getEntity() instanceof Member) {
+			increment(event.getSession(), teamId(event.getPersister(), event.getDeletedState()), -1);
+		}
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	private Long teamId(EntityPersister persister, Object[] state) {
+		Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+		return team == null ? null : ((Team)team).getId();
+	}
+
+	private void increment(SharedSessionContractImplementor session, Long teamId, int delta) {
+		if (teamId != null) {
+			execute(session, INCREMENT_SQL, delta, teamId);
+		}
+	}
+
+	private void execute(SharedSessionContractImplementor session, String sql, Object... parameters) {
+		if (parameters[parameters.length - 1] == null) {
+			return;
+		}
+		try (PreparedStatement statement = session.connection().prepareStatement(sql)) {
+			for (int i = 0; i < parameters.length; i++) {
+				statement.setObject(i + 1, parameters[i]);
+			}
+			statement.executeUpdate();
+		} catch (SQLException e) {
+			throw new HibernateException("team.member_count 갱신에 실패했습니다.", e);
+		}
+	}
+}
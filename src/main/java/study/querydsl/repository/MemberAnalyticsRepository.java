@@ -0,0 +1,119 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.sql.SMember.*;
+import static study.querydsl.sql.STeam.*;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.stereotype.Repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * JPQL 로는 표현할 수 없는 윈도우 함수(OVER (PARTITION BY team_id))로 팀별 분석 쿼리를 실행한다.
+ * 팀별 max/avg 를 상관 서브쿼리로 다시 스캔하지 않고 member 를 한 번만 읽는다.
+ * TransactionAwareDataSourceProxy 를 거치므로 JPA 트랜잭션 안에서는 같은 커넥션을 쓰지만,
+ * 영속성 컨텍스트를 flush 하지는 않는다.
+ */
+@Repository
+public class MemberAnalyticsRepository {
+
+	private static final PathBuilder<Object> window = new PathBuilder<>(Object.class, "w");
+	private static final NumberPath<Long> windowMemberId = window.getNumber("member_id", Long.class);
+	private static final StringPath windowUsername = window.getString("username");
+	private static final NumberPath<Integer> windowAge = window.getNumber("age", Integer.class);
+	private static final NumberPath<Long> windowTeamId = window.getNumber("team_id", Long.class);
+	private static final StringPath windowTeamName = window.getString("team_name");
+	private static final NumberPath<Integer> windowTeamMaxAge = window.getNumber("team_max_age", Integer.class);
+	private static final NumberPath<Double> windowTeamAvgAge = window.getNumber("team_avg_age", Double.class);
+
+	private final SQLQueryFactory queryFactory;
+
+	public MemberAnalyticsRepository(DataSource dataSource) {
+		this.queryFactory = new SQLQueryFactory(new Configuration(H2Templates.builder().build()),
+			new TransactionAwareDataSourceProxy(dataSource));
+	}
+
+	/**
+	 * 팀 안에서의 나이 순위(나이 많은 순 1위)와 백분위(0 = 가장 어림, 1 = 가장 많음).
+	 */
+	public List<MemberRankDto> findTeamAgeRanks(String teamName) {
+		return queryFactory
+			.select(Projections.constructor(MemberRankDto.class,
+				member.memberId,
+				member.username,
+				member.age,
+				team.teamId,
+				team.name,
+				SQLExpressions.rank().over().partitionBy(member.teamId).orderBy(member.age.desc()),
+				SQLExpressions.percentRank().over().partitionBy(member.teamId).orderBy(member.age.asc())))
+			.from(member)
+			.join(team).on(member.teamId.eq(team.teamId))
+			.where(teamNameEq(teamName))
+			.orderBy(team.name.asc(), member.age.desc(), member.memberId.asc())
+			.fetch();
+	}
+
+	/**
+	 * 팀별 최고령 회원. subQuery 의 팀별 버전이다.
+	 */
+	public List<MemberTeamDto> findOldestPerTeam() {
+		return selectFromTeamWindow()
+			.where(windowAge.eq(windowTeamMaxAge))
+			.fetch();
+	}
+
+	/**
+	 * 팀 평균 나이 이상인 회원. subQueryGoe 의 팀별 버전이다.
+	 */
+	public List<MemberTeamDto> findAtOrAboveTeamAverage() {
+		return selectFromTeamWindow()
+			.where(windowAge.castToNum(Double.class).goe(windowTeamAvgAge))
+			.fetch();
+	}
+
+	private SQLQuery<MemberTeamDto> selectFromTeamWindow() {
+		SQLQuery<Tuple> teamWindow = SQLExpressions
+			.select(member.memberId,
+				member.username,
+				member.age,
+				member.teamId,
+				team.name.as("team_name"),
+				SQLExpressions.max(member.age).over().partitionBy(member.teamId).as("team_max_age"),
+				SQLExpressions.avg(member.age.castToNum(Double.class)).over().partitionBy(member.teamId)
+					.as("team_avg_age"))
+			.from(member)
+			.join(team).on(member.teamId.eq(team.teamId));
+
+		return queryFactory
+			.select(Projections.constructor(MemberTeamDto.class,
+				windowMemberId,
+				windowUsername,
+				windowAge,
+				windowTeamId,
+				windowTeamName))
+			.from(teamWindow, window)
+			.orderBy(windowTeamId.asc(), windowMemberId.asc());
+	}
+
+	private BooleanExpression teamNameEq(String teamName) {
+		return hasText(teamName) ? team.name.eq(teamName) : null;
+	}
+}
@@ -0,0 +1,92 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.ChangeCapturingJPAQueryFactory;
+import study.querydsl.event.EntityChangeBus;
+
+/**
+ * DB 를 거치지 않고 메모리 스냅샷으로 search 를 처리하는 MemberRepositoryCustom 구현.
+ * 스냅샷은 통째로 교체되므로 조회 중에는 락이 없고, 마지막 재구성 이후의 변경은 다음 재구성 때 반영된다.
+ * Member/Team 변경 이벤트가 커밋되면 stale 로 표시해 짧은 주기로 다시 만들고, 놓친 변경에 대비해 주기적으로도 다시 만든다.
+ */
+@Repository
+public class MemberColumnarRepository implements MemberRepositoryCustom {
+
+	private final JPAQueryFactory queryFactory;
+	private final AtomicBoolean stale = new AtomicBoolean();
+	private volatile MemberColumnarSnapshot snapshot = MemberColumnarSnapshot.empty();
+
+	public MemberColumnarRepository(ChangeCapturingJPAQueryFactory queryFactory, EntityChangeBus changeBus) {
+		this.queryFactory = queryFactory;
+		changeBus.subscribe(events -> {
+			if (events.stream().anyMatch(event -> event.getEntityType() == Member.class
+				|| event.getEntityType() == Team.class)) {
+				stale.set(true);
+			}
+		});
+	}
+
+	@Override
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		MemberColumnarSnapshot current = snapshot;
+		int[] rows = current.search(condition.getUsername(), condition.getUsernameKey(), condition.getTeamName(),
+			condition.getAgeGoe(), condition.getAgeLoe());
+		List<MemberTeamDto> result = new ArrayList<>(rows.length);
+		for (int row : rows) {
+			result.add(current.toDto(row));
+		}
+		return result;
+	}
+
+	public MemberColumnarSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	@Scheduled(fixedDelayString = "${querydsl.columnar.refresh-delay:PT1S}")
+	@Transactional(readOnly = true)
+	public void refreshIfStale() {
+		if (stale.compareAndSet(true, false)) {
+			rebuild();
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${querydsl.columnar.rebuild-interval:PT1M}",
+		initialDelayString = "${querydsl.columnar.rebuild-interval:PT1M}")
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		stale.set(false);
+		List<Tuple> rows = queryFactory
+			.select(member.id, member.username, member.age, team.id, team.name)
+			.from(member)
+			.leftJoin(member.team, team)
+			.orderBy(member.id.asc())
+			.fetch();
+
+		MemberColumnarSnapshot.Builder builder = MemberColumnarSnapshot.builder();
+		for (Tuple row : rows) {
+			builder.add(row.get(member.id), row.get(member.username), row.get(member.age),
+				row.get(team.id), row.get(team.name));
+		}
+		snapshot = builder.build();
+	}
+}
@@ -0,0 +1,320 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+/**
+ * 회원 읽기 모델의 불변 스냅샷.
+ * 행은 member_id 오름차순으로 저장하고, 문자열은 사전 인코딩해서 행마다 int 코드만 가진다.
+ * 팀별 / 전체 나이 정렬 인덱스와 username, username_key 인덱스로 MemberSearchCondition 을 스캔 없이 처리한다.
+ */
+public final class MemberColumnarSnapshot {
+
+	private static final int NONE = -1;
+	private static final int[] EMPTY = new int[0];
+
+	private final int size;
+	private final long[] ids;
+	private final int[] ages;
+	private final int[] usernameCodes;
+	private final int[] teamCodes;
+
+	private final String[] usernames;
+	private final String[] usernameKeys;
+	private final long[] teamIds;
+	private final String[] teamNames;
+
+	private final Map<String, int[]> rowsByUsername;
+	private final Map<String, int[]> rowsByUsernameKey;
+	private final Map<String, int[]> teamCodesByName;
+	private final int[][] teamRowsByAge;
+	private final int[][] teamAgesSorted;
+	private final int[] rowsByAge;
+	private final int[] agesSorted;
+
+	private MemberColumnarSnapshot(Builder builder) {
+		this.size = builder.size;
+		this.ids = Arrays.copyOf(builder.ids, size);
+		this.ages = Arrays.copyOf(builder.ages, size);
+		this.usernameCodes = Arrays.copyOf(builder.usernameCodes, size);
+		this.teamCodes = Arrays.copyOf(builder.teamCodes, size);
+		this.usernames = builder.usernames.toArray(String[]::new);
+		this.teamIds = builder.teamIds.stream().mapToLong(Long::longValue).toArray();
+		this.teamNames = builder.teamNames.toArray(String[]::new);
+
+		int[][] usernameRows = groupRows(usernameCodes, usernames.length);
+		this.rowsByUsername = new HashMap<>(usernames.length * 2);
+		for (int code = 0; code < usernames.length; code++) {
+			rowsByUsername.put(usernames[code], usernameRows[code]);
+		}
+
+		this.usernameKeys = new String[usernames.length];
+		this.rowsByUsernameKey = new HashMap<>(usernames.length * 2);
+		for (int code = 0; code < usernames.length; code++) {
+			usernameKeys[code] = Member.toUsernameKey(usernames[code]);
+			int[] rows = rowsByUsernameKey.getOrDefault(usernameKeys[code], EMPTY);
+			int[] merged = Arrays.copyOf(rows, rows.length + usernameRows[code].length);
+			System.arraycopy(usernameRows[code], 0, merged, rows.length, usernameRows[code].length);
+			rowsByUsernameKey.put(usernameKeys[code], merged);
+		}
+		// 여러 username 이 같은 key 로 모이면 행 번호가 섞이므로 다시 정렬한다.
+		rowsByUsernameKey.values().forEach(Arrays::sort);
+
+		this.teamCodesByName = new HashMap<>();
+		for (int code = 0; code < teamNames.length; code++) {
+			int[] codes = teamCodesByName.getOrDefault(teamNames[code], EMPTY);
+			int[] appended = Arrays.copyOf(codes, codes.length + 1);
+			appended[codes.length] = code;
+			teamCodesByName.put(teamNames[code], appended);
+		}
+
+		int[][] teamRows = groupRows(teamCodes, teamNames.length);
+		this.teamRowsByAge = new int[teamNames.length][];
+		this.teamAgesSorted = new int[teamNames.length][];
+		for (int code = 0; code < teamNames.length; code++) {
+			teamRowsByAge[code] = sortByAge(teamRows[code]);
+			teamAgesSorted[code] = agesOf(teamRowsByAge[code]);
+		}
+
+		int[] allRows = new int[size];
+		Arrays.setAll(allRows, row -> row);
+		this.rowsByAge = sortByAge(allRows);
+		this.agesSorted = agesOf(rowsByAge);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static MemberColumnarSnapshot empty() {
+		return builder().build();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 조건에 맞는 행 번호를 member_id 오름차순으로 반환한다. 빈 문자열/ null 조건은 무시한다.
+	 * usernameKey 는 정규화 전 값을 받아 Member.toUsernameKey 로 바꿔 비교한다.
+	 */
+	public int[] search(String username, String usernameKey, String teamName, Integer ageGoe, Integer ageLoe) {
+		int minAge = ageGoe == null ? Integer.MIN_VALUE : ageGoe;
+		int maxAge = ageLoe == null ? Integer.MAX_VALUE : ageLoe;
+		if (minAge > maxAge) {
+			return EMPTY;
+		}
+
+		int[] result;
+		if (hasText(username) || hasText(usernameKey)) {
+			String key = hasText(usernameKey) ? Member.toUsernameKey(usernameKey) : null;
+			int[] candidates = hasText(username)
+				? rowsByUsername.getOrDefault(username, EMPTY)
+				: rowsByUsernameKey.getOrDefault(key, EMPTY);
+			result = new int[candidates.length];
+			int count = 0;
+			for (int row : candidates) {
+				if (ages[row] >= minAge && ages[row] <= maxAge && teamMatches(row, teamName)
+					&& usernameKeyMatches(row, key)) {
+					result[count++] = row;
+				}
+			}
+			return Arrays.copyOf(result, count);
+		}
+
+		if (hasText(teamName)) {
+			int[] codes = teamCodesByName.getOrDefault(teamName, EMPTY);
+			int[][] slices = new int[codes.length][];
+			int total = 0;
+			for (int i = 0; i < codes.length; i++) {
+				slices[i] = ageRange(teamRowsByAge[codes[i]], teamAgesSorted[codes[i]], minAge, maxAge);
+				total += slices[i].length;
+			}
+			result = new int[total];
+			int offset = 0;
+			for (int[] slice : slices) {
+				System.arraycopy(slice, 0, result, offset, slice.length);
+				offset += slice.length;
+			}
+		} else {
+			result = ageRange(rowsByAge, agesSorted, minAge, maxAge);
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	public MemberTeamDto toDto(int row) {
+		int usernameCode = usernameCodes[row];
+		int teamCode = teamCodes[row];
+		return new MemberTeamDto(
+			ids[row],
+			usernameCode == NONE ? null : usernames[usernameCode],
+			ages[row],
+			teamCode == NONE ? null : teamIds[teamCode],
+			teamCode == NONE ? null : teamNames[teamCode]);
+	}
+
+	/**
+	 * 배열과 사전 문자열이 차지하는 대략적인 힙 크기(byte). 객체 헤더와 HashMap 엔트리는 근사치로 계산한다.
+	 */
+	public long estimatedBytes() {
+		long bytes = 8L * ids.length + 4L * (ages.length + usernameCodes.length + teamCodes.length);
+		bytes += 8L * teamIds.length + 4L * (rowsByAge.length + agesSorted.length);
+		for (int code = 0; code < teamNames.length; code++) {
+			bytes += 8L * teamRowsByAge[code].length + 16 * 2;
+		}
+		bytes += stringBytes(usernames) + stringBytes(usernameKeys) + stringBytes(teamNames);
+		bytes += 48L * (rowsByUsername.size() + rowsByUsernameKey.size() + teamCodesByName.size());
+		for (int[] rows : rowsByUsername.values()) {
+			bytes += 16 + 4L * rows.length;
+		}
+		for (int[] rows : rowsByUsernameKey.values()) {
+			bytes += 16 + 4L * rows.length;
+		}
+		return bytes;
+	}
+
+	private boolean usernameKeyMatches(int row, String key) {
+		if (key == null) {
+			return true;
+		}
+		int usernameCode = usernameCodes[row];
+		return usernameCode != NONE && key.equals(usernameKeys[usernameCode]);
+	}
+
+	private boolean teamMatches(int row, String teamName) {
+		if (!hasText(teamName)) {
+			return true;
+		}
+		int teamCode = teamCodes[row];
+		return teamCode != NONE && teamName.equals(teamNames[teamCode]);
+	}
+
+	private int[] ageRange(int[] rows, int[] sortedAges, int minAge, int maxAge) {
+		int from = lowerBound(sortedAges, minAge);
+		int to = maxAge == Integer.MAX_VALUE ? sortedAges.length : lowerBound(sortedAges, maxAge + 1);
+		return Arrays.copyOfRange(rows, from, Math.max(from, to));
+	}
+
+	private int[] sortByAge(int[] rows) {
+		long[] keys = new long[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			keys[i] = ((long)ages[rows[i]] << 32) | rows[i];
+		}
+		Arrays.sort(keys);
+		int[] sorted = new int[rows.length];
+		for (int i = 0; i < keys.length; i++) {
+			sorted[i] = (int)keys[i];
+		}
+		return sorted;
+	}
+
+	private int[] agesOf(int[] rows) {
+		int[] result = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			result[i] = ages[rows[i]];
+		}
+		return result;
+	}
+
+	private static int lowerBound(int[] sorted, int key) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static int[][] groupRows(int[] codes, int cardinality) {
+		int[] counts = new int[cardinality];
+		for (int code : codes) {
+			if (code != NONE) {
+				counts[code]++;
+			}
+		}
+		int[][] groups = new int[cardinality][];
+		for (int code = 0; code < cardinality; code++) {
+			groups[code] = new int[counts[code]];
+			counts[code] = 0;
+		}
+		for (int row = 0; row < codes.length; row++) {
+			int code = codes[row];
+			if (code != NONE) {
+				groups[code][counts[code]++] = row;
+			}
+		}
+		return groups;
+	}
+
+	private static long stringBytes(String[] values) {
+		long bytes = 16L + 4L * values.length;
+		for (String value : values) {
+			bytes += 40 + (value == null ? 0 : value.length() * 2L);
+		}
+		return bytes;
+	}
+
+	private static boolean hasText(String value) {
+		return value != null && !value.isEmpty();
+	}
+
+	/**
+	 * 행은 member_id 오름차순으로 추가해야 한다.
+	 */
+	public static final class Builder {
+
+		private int size;
+		private long[] ids = new long[1024];
+		private int[] ages = new int[1024];
+		private int[] usernameCodes = new int[1024];
+		private int[] teamCodes = new int[1024];
+
+		private final Map<String, Integer> usernameDictionary = new HashMap<>();
+		private final List<String> usernames = new ArrayList<>();
+		private final Map<Long, Integer> teamDictionary = new HashMap<>();
+		private final List<Long> teamIds = new ArrayList<>();
+		private final List<String> teamNames = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		public Builder add(long id, String username, int age, Long teamId, String teamName) {
+			if (size == ids.length) {
+				int capacity = size * 2;
+				ids = Arrays.copyOf(ids, capacity);
+				ages = Arrays.copyOf(ages, capacity);
+				usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+				teamCodes = Arrays.copyOf(teamCodes, capacity);
+			}
+			ids[size] = id;
+			ages[size] = age;
+			usernameCodes[size] = username == null ? NONE : usernameDictionary.computeIfAbsent(username, key -> {
+				usernames.add(key);
+				return usernames.size() - 1;
+			});
+			teamCodes[size] = teamId == null ? NONE : teamDictionary.computeIfAbsent(teamId, key -> {
+				teamIds.add(key);
+				teamNames.add(teamName);
+				return teamIds.size() - 1;
+			});
+			size++;
+			return this;
+		}
+
+		public MemberColumnarSnapshot build() {
+			return new MemberColumnarSnapshot(this);
+		}
+	}
+}
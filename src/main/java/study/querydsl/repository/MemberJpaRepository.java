@@ -4,31 +4,56 @@ import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import javax.persistence.EntityManager;
 
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
+import study.querydsl.bloom.UsernameBloomFilter;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.event.ChangeCapturingJPAQueryFactory;
 
 @Repository
 public class MemberJpaRepository {
 
+	/**
+	 * searchBatch 가 한 번에 받는 검색 조건 수. 호출하는 쪽은 10~50 개씩 묶어 보낸다.
+	 */
+	public static final int MAX_BATCH_SIZE = 50;
+	/**
+	 * IN 목록 길이마다 쿼리 계획이 따로 캐시되므로 합친 IN 목록은 이 길이로 잘라 실행한다.
+	 */
+	private static final int IN_CLAUSE_CHUNK = 16;
+
 	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final UsernameBloomFilter usernameFilter;
 
-	public MemberJpaRepository(EntityManager em) {
+	public MemberJpaRepository(EntityManager em, ChangeCapturingJPAQueryFactory queryFactory,
+		UsernameBloomFilter usernameFilter) {
 		this.em = em;
-		this.queryFactory = new JPAQueryFactory(em);
+		this.queryFactory = queryFactory;
+		this.usernameFilter = usernameFilter;
 	}
 
 	public void save(Member member) {
@@ -46,21 +71,63 @@ public class MemberJpaRepository {
 	}
 
 	public List<Member> findByUsername(String username) {
-		return em.createQuery("select m from Member m where m.username = :username", Member.class)
+		if (hasText(username) && usernameFilter.definitelyAbsent(username)) {
+			return List.of();
+		}
+		List<Member> result = em.createQuery("select m from Member m where m.username = :username", Member.class)
 			.setParameter("username", username)
 			.getResultList();
+		if (hasText(username)) {
+			usernameFilter.recordLookup(username, !result.isEmpty());
+		}
+		return result;
 	}
 
 	public List<Member> findAll_Querydsl() {
-		return queryFactory
-			.selectFrom(member).fetch();
+		return selectAll(false);
 	}
 
 	public List<Member> findByUsername_Querydsl(String username) {
+		return selectByUsername(username, false);
+	}
+
+	/**
+	 * findAll_Querydsl 의 읽기 전용 버전. readOnly 트랜잭션(flush 생략)에 더해 readOnly 힌트를 주어
+	 * 읽기-쓰기 트랜잭션에 참여해도 dirty checking 스냅샷을 만들지 않는다. 반환된 엔티티를 수정해도 DB 에 반영되지 않는다.
+	 */
+	@Transactional(readOnly = true)
+	public List<Member> findAll_QuerydslReadOnly() {
+		return selectAll(true);
+	}
+
+	/**
+	 * findByUsername_Querydsl 의 읽기 전용 버전. 반환된 엔티티를 수정해도 DB 에 반영되지 않는다.
+	 */
+	@Transactional(readOnly = true)
+	public List<Member> findByUsername_QuerydslReadOnly(String username) {
+		return selectByUsername(username, true);
+	}
+
+	private List<Member> selectAll(boolean readOnly) {
 		return queryFactory
+			.selectFrom(member)
+			.setHint(QueryHints.READ_ONLY, readOnly)
+			.fetch();
+	}
+
+	private List<Member> selectByUsername(String username, boolean readOnly) {
+		if (hasText(username) && usernameFilter.definitelyAbsent(username)) {
+			return List.of();
+		}
+		List<Member> result = queryFactory
 			.selectFrom(member)
 			.where(member.username.eq(username))
+			.setHint(QueryHints.READ_ONLY, readOnly)
 			.fetch();
+		if (hasText(username)) {
+			usernameFilter.recordLookup(username, !result.isEmpty());
+		}
+		return result;
 	}
 
 	public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
@@ -68,6 +135,9 @@ public class MemberJpaRepository {
 		if (hasText(condition.getUsername())) {
 			builder.and(member.username.eq(condition.getUsername()));
 		}
+		if (hasText(condition.getUsernameKey())) {
+			builder.and(member.usernameKey.eq(Member.toUsernameKey(condition.getUsernameKey())));
+		}
 		if (hasText(condition.getTeamName())) {
 			builder.and(team.name.eq(condition.getTeamName()));
 		}
@@ -92,7 +162,100 @@ public class MemberJpaRepository {
 			.fetch();
 	}
 
+	/**
+	 * username 조건이 있고 Bloom filter 가 없다고 하면 조회하지 않는다.
+	 */
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		String username = condition.getUsername();
+		if (hasText(username) && usernameFilter.definitelyAbsent(username)) {
+			return List.of();
+		}
+		List<MemberTeamDto> result = searchQuery(condition).fetch();
+		if (hasText(username) && (!result.isEmpty() || isUsernameOnly(condition))) {
+			usernameFilter.recordLookup(username, !result.isEmpty());
+		}
+		return result;
+	}
+
+	/**
+	 * 여러 검색 조건을 한 트랜잭션(한 커넥션)에서 처리한다.
+	 * teamName 또는 username 만 다르고 나머지가 같은 조건들은 IN 쿼리로 합친 뒤 결과를 조건별로 나눠 담는다.
+	 * 합친 username 도 search 와 같이 Bloom filter 를 거친다. 반환 목록은 conditions 와 같은 순서다.
+	 * 조건은 MAX_BATCH_SIZE 개까지, null 없이 받는다.
+	 */
+	@Transactional(readOnly = true)
+	public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+		if (conditions.size() > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException(
+				"검색 조건은 한 번에 " + MAX_BATCH_SIZE + "개까지 보낼 수 있습니다: " + conditions.size());
+		}
+		if (conditions.stream().anyMatch(Objects::isNull)) {
+			throw new IllegalArgumentException("검색 조건에 null 이 있습니다.");
+		}
+		List<MemberSearchCondition> distinct = conditions.stream().distinct().toList();
+		Map<MemberSearchCondition, List<MemberTeamDto>> results = new HashMap<>();
+
+		searchMerged(distinct, results, MemberSearchCondition::getTeamName, MemberSearchCondition::setTeamName,
+			MemberTeamDto::getTeamName, teamNames -> team.name.in(teamNames), false);
+		searchMerged(distinct, results, MemberSearchCondition::getUsername, MemberSearchCondition::setUsername,
+			MemberTeamDto::getUsername, usernames -> member.username.in(usernames), true);
+		for (MemberSearchCondition condition : distinct) {
+			results.computeIfAbsent(condition, this::search);
+		}
+
+		return conditions.stream()
+			.map(results::get)
+			.toList();
+	}
+
+	private void searchMerged(List<MemberSearchCondition> conditions,
+		Map<MemberSearchCondition, List<MemberTeamDto>> results,
+		Function<MemberSearchCondition, String> value,
+		BiConsumer<MemberSearchCondition, String> setValue,
+		Function<MemberTeamDto, String> rowValue,
+		Function<Collection<String>, BooleanExpression> valueIn,
+		boolean usernameFiltered) {
+		Map<MemberSearchCondition, List<MemberSearchCondition>> groups = new LinkedHashMap<>();
+		for (MemberSearchCondition condition : conditions) {
+			if (!results.containsKey(condition) && hasText(value.apply(condition))) {
+				MemberSearchCondition shape = copyOf(condition);
+				setValue.accept(shape, null);
+				groups.computeIfAbsent(shape, key -> new ArrayList<>()).add(condition);
+			}
+		}
+
+		for (Map.Entry<MemberSearchCondition, List<MemberSearchCondition>> group : groups.entrySet()) {
+			if (group.getValue().size() < 2) {
+				continue;
+			}
+			List<MemberSearchCondition> remaining = new ArrayList<>();
+			for (MemberSearchCondition condition : group.getValue()) {
+				if (usernameFiltered && usernameFilter.definitelyAbsent(value.apply(condition))) {
+					results.put(condition, List.of());
+				} else {
+					remaining.add(condition);
+				}
+			}
+
+			List<String> values = remaining.stream().map(value).toList();
+			Map<String, List<MemberTeamDto>> rowsByValue = new HashMap<>();
+			for (int from = 0; from < values.size(); from += IN_CLAUSE_CHUNK) {
+				List<String> chunk = values.subList(from, Math.min(from + IN_CLAUSE_CHUNK, values.size()));
+				for (MemberTeamDto row : searchQuery(group.getKey()).where(valueIn.apply(chunk)).fetch()) {
+					rowsByValue.computeIfAbsent(rowValue.apply(row), key -> new ArrayList<>()).add(row);
+				}
+			}
+			for (MemberSearchCondition condition : remaining) {
+				List<MemberTeamDto> rows = rowsByValue.getOrDefault(value.apply(condition), List.of());
+				results.put(condition, rows);
+				if (usernameFiltered && (!rows.isEmpty() || isUsernameOnly(condition))) {
+					usernameFilter.recordLookup(value.apply(condition), !rows.isEmpty());
+				}
+			}
+		}
+	}
+
+	private JPAQuery<MemberTeamDto> searchQuery(MemberSearchCondition condition) {
 		return queryFactory
 			.select(new QMemberTeamDto(
 				member.id,
@@ -103,16 +266,38 @@ public class MemberJpaRepository {
 			)).from(member)
 			.leftJoin(member.team, team)
 			.where(usernameEq(condition.getUsername()),
+				usernameKeyEq(condition.getUsernameKey()),
 				teamNameEq(condition.getTeamName()),
 				ageGoe(condition.getAgeGoe()),
-				ageLoe(condition.getAgeLoe()))
-			.fetch();
+				ageLoe(condition.getAgeLoe()));
+	}
+
+	/**
+	 * 다른 조건이 섞이면 결과가 비어도 그 username 이 없는지 알 수 없으므로 빈 결과는 username 단독 조건에서만 센다.
+	 */
+	private boolean isUsernameOnly(MemberSearchCondition condition) {
+		return !hasText(condition.getUsernameKey()) && !hasText(condition.getTeamName())
+			&& condition.getAgeGoe() == null && condition.getAgeLoe() == null;
+	}
+
+	private MemberSearchCondition copyOf(MemberSearchCondition condition) {
+		MemberSearchCondition copy = new MemberSearchCondition();
+		copy.setUsername(condition.getUsername());
+		copy.setUsernameKey(condition.getUsernameKey());
+		copy.setTeamName(condition.getTeamName());
+		copy.setAgeGoe(condition.getAgeGoe());
+		copy.setAgeLoe(condition.getAgeLoe());
+		return copy;
 	}
 
 	private BooleanExpression usernameEq(String username) {
 		return hasText(username) ? member.username.eq(username) : null;
 	}
 
+	private BooleanExpression usernameKeyEq(String usernameKey) {
+		return hasText(usernameKey) ? member.usernameKey.eq(Member.toUsernameKey(usernameKey)) : null;
+	}
+
 	private BooleanExpression teamNameEq(String teamName) {
 		return hasText(teamName) ? team.name.eq(teamName) : null;
 	}
@@ -0,0 +1,164 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import study.querydsl.dto.MemberAgeStatsDto;
+
+/**
+ * member_id 범위를 N개로 나눠 같은 Predicate 를 파티션마다 별도 커넥션에서 병렬로 실행하고 결과를 합친다.
+ * 각 파티션은 자기 EntityManager 로 조회하므로 호출 트랜잭션에서 아직 커밋되지 않은 데이터는 보이지 않는다.
+ * 엔티티를 select 하면 준영속 상태로 반환되므로 DTO/Tuple 프로젝션 용도로 사용한다.
+ */
+@Repository
+public class MemberPartitionedQueryExecutor {
+
+	private static final NumberExpression<Long> ageSum = Expressions.numberTemplate(Long.class, "sum({0})", member.age);
+
+	private final EntityManagerFactory emf;
+	private final int partitions;
+	private final ExecutorService executor;
+
+	public MemberPartitionedQueryExecutor(EntityManagerFactory emf,
+		@Value("${querydsl.partition.count:4}") int partitions) {
+		this.emf = emf;
+		this.partitions = partitions;
+		AtomicInteger sequence = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(partitions, runnable -> {
+			Thread thread = new Thread(runnable, "member-partition-" + sequence.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * 파티션 순서대로 이어 붙이므로 결과는 member_id 오름차순이다.
+	 */
+	public <T> List<T> fetch(Expression<T> projection, Predicate... where) {
+		List<T> result = new ArrayList<>();
+		for (List<T> partial : execute(query -> query.select(projection).orderBy(member.id.asc()).fetch(), where)) {
+			result.addAll(partial);
+		}
+		return result;
+	}
+
+	public long count(Predicate... where) {
+		long count = 0;
+		for (Long partial : execute(query -> query.select(member.count()).fetchOne(), where)) {
+			count += partial;
+		}
+		return count;
+	}
+
+	public MemberAgeStatsDto ageStats(Predicate... where) {
+		MemberAgeStatsDto result = MemberAgeStatsDto.empty();
+		for (Tuple partial : execute(query -> query.select(member.count(), ageSum, member.age.min(), member.age.max())
+			.fetchOne(), where)) {
+			result = result.combine(toStats(partial));
+		}
+		return result;
+	}
+
+	public Map<String, MemberAgeStatsDto> ageStatsByTeam(Predicate... where) {
+		Map<String, MemberAgeStatsDto> result = new HashMap<>();
+		for (List<Tuple> partial : execute(query -> query
+			.select(team.name, member.count(), ageSum, member.age.min(), member.age.max())
+			.groupBy(team.name)
+			.fetch(), where)) {
+			for (Tuple tuple : partial) {
+				result.merge(tuple.get(team.name), toStats(tuple), MemberAgeStatsDto::combine);
+			}
+		}
+		return result;
+	}
+
+	private MemberAgeStatsDto toStats(Tuple tuple) {
+		Long sum = tuple.get(ageSum);
+		return new MemberAgeStatsDto(
+			tuple.get(member.count()),
+			sum == null ? 0 : sum,
+			tuple.get(member.age.min()),
+			tuple.get(member.age.max()));
+	}
+
+	private <R> List<R> execute(Function<JPAQuery<?>, R> query, Predicate... where) {
+		Tuple bounds = withEntityManager(em -> new JPAQuery<>(em)
+			.select(member.id.min(), member.id.max())
+			.from(member)
+			.fetchOne());
+		Long minId = bounds.get(member.id.min());
+		Long maxId = bounds.get(member.id.max());
+		if (minId == null) {
+			return List.of();
+		}
+
+		long size = Math.max(1, (maxId - minId + 1 + partitions - 1) / partitions);
+		List<Future<R>> futures = new ArrayList<>();
+		for (long from = minId; from <= maxId; from += size) {
+			long lo = from;
+			long hi = Math.min(maxId, from + size - 1);
+			futures.add(executor.submit(() -> withEntityManager(em -> query.apply(new JPAQuery<>(em)
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(member.id.between(lo, hi))
+				.where(where)))));
+		}
+
+		List<R> results = new ArrayList<>(futures.size());
+		try {
+			for (Future<R> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("파티션 조회가 중단되었습니다.", e);
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException("파티션 조회에 실패했습니다.", e.getCause());
+		}
+		return results;
+	}
+
+	private <R> R withEntityManager(Function<EntityManager, R> work) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return work.apply(em);
+		} finally {
+			em.close();
+		}
+	}
+}
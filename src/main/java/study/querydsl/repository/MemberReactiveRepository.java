@@ -0,0 +1,138 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.sql.SMember.*;
+import static study.querydsl.sql.STeam.*;
+
+import java.util.List;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLBindings;
+import com.querydsl.sql.SQLQuery;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import reactor.core.publisher.Flux;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+/**
+ * MemberRepositoryImpl.search 와 같은 조건으로 R2DBC 위에서 회원을 스트리밍 조회한다.
+ * SQL 은 querydsl-sql 로 만들고, 실행만 DatabaseClient 에 맡겨 구독자가 요청한 만큼만 커서에서 행을 읽는다.
+ * ConnectionFactory 를 빈으로 등록하면 JDBC DataSource 자동 설정이 꺼지므로 커넥션 풀은 이 저장소 안에서만 관리한다.
+ * R2DBC 드라이버는 H2 만 두었으므로 spring.datasource.url 이 H2 일 때만 빈을 만든다.
+ */
+@Repository
+@ConditionalOnExpression("'${spring.datasource.url:}'.startsWith('" + MemberReactiveRepository.JDBC_H2_PREFIX + "')")
+public class MemberReactiveRepository implements DisposableBean {
+
+	static final String JDBC_H2_PREFIX = "jdbc:h2:";
+
+	private final Configuration configuration = new Configuration(H2Templates.builder().build());
+	private final ConnectionPool connectionPool;
+	private final DatabaseClient databaseClient;
+	private final int fetchSize;
+
+	public MemberReactiveRepository(
+		@Value("${spring.datasource.url}") String jdbcUrl,
+		@Value("${spring.datasource.username:sa}") String username,
+		@Value("${spring.datasource.password:}") String password,
+		@Value("${querydsl.reactive.pool-size:10}") int poolSize,
+		@Value("${querydsl.reactive.fetch-size:256}") int fetchSize) {
+		H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+			.url(jdbcUrl.substring(JDBC_H2_PREFIX.length()))
+			.username(username)
+			.password(password)
+			.build());
+		this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+			.maxSize(poolSize)
+			.build());
+		this.databaseClient = DatabaseClient.create(connectionPool);
+		this.fetchSize = fetchSize;
+	}
+
+	public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+		SQLBindings sql = new SQLQuery<Void>(configuration)
+			.select(member.memberId, member.username, member.age, team.teamId, team.name)
+			.from(member)
+			.leftJoin(team).on(member.teamId.eq(team.teamId))
+			.where(usernameEq(condition.getUsername()),
+				usernameKeyEq(condition.getUsernameKey()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe()))
+			.getSQL();
+
+		List<Object> bindings = sql.getNullFriendlyBindings();
+		DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(toNamedParameters(sql.getSQL()))
+			.filter(statement -> statement.fetchSize(fetchSize));
+		for (int i = 0; i < bindings.size(); i++) {
+			Object value = bindings.get(i);
+			spec = value == null ? spec.bindNull("p" + i, Object.class) : spec.bind("p" + i, value);
+		}
+		return spec.map(row -> new MemberTeamDto(
+				row.get(0, Long.class),
+				row.get(1, String.class),
+				row.get(2, Integer.class),
+				row.get(3, Long.class),
+				row.get(4, String.class)))
+			.all();
+	}
+
+	@Override
+	public void destroy() {
+		connectionPool.dispose();
+	}
+
+	/**
+	 * querydsl-sql 의 ? 자리표시자를 DatabaseClient 가 드라이버 방식으로 바꿔 주는 :p0, :p1 ... 이름으로 바꾼다.
+	 */
+	static String toNamedParameters(String sql) {
+		StringBuilder named = new StringBuilder(sql.length() + 16);
+		int index = 0;
+		boolean quoted = false;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			}
+			if (c == '?' && !quoted) {
+				named.append(":p").append(index++);
+			} else {
+				named.append(c);
+			}
+		}
+		return named.toString();
+	}
+
+	private BooleanExpression usernameEq(String username) {
+		return isEmpty(username) ? null : member.username.eq(username);
+	}
+
+	private BooleanExpression usernameKeyEq(String usernameKey) {
+		return isEmpty(usernameKey) ? null : member.usernameKey.eq(Member.toUsernameKey(usernameKey));
+	}
+
+	private BooleanExpression teamNameEq(String teamName) {
+		return isEmpty(teamName) ? null : team.name.eq(teamName);
+	}
+
+	private BooleanExpression ageGoe(Integer ageGoe) {
+		return ageGoe == null ? null : member.age.goe(ageGoe);
+	}
+
+	private BooleanExpression ageLoe(Integer ageLoe) {
+		return ageLoe == null ? null : member.age.loe(ageLoe);
+	}
+}
@@ -2,10 +2,14 @@ package study.querydsl.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import study.querydsl.entity.Member;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 	List<Member> findByUsername(String username);
+
+	Slice<Member> findByTeamId(Long teamId, Pageable pageable);
 }
@@ -6,25 +6,31 @@ import static study.querydsl.entity.QTeam.*;
 
 import java.util.List;
 
-import javax.persistence.EntityManager;
-
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
+import study.querydsl.bloom.UsernameBloomFilter;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.event.ChangeCapturingJPAQueryFactory;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
 	private final JPAQueryFactory queryFactory;
+	private final UsernameBloomFilter usernameFilter;
 
-	public MemberRepositoryImpl(EntityManager em) {
-		this.queryFactory = new JPAQueryFactory(em);
+	public MemberRepositoryImpl(ChangeCapturingJPAQueryFactory queryFactory, UsernameBloomFilter usernameFilter) {
+		this.queryFactory = queryFactory;
+		this.usernameFilter = usernameFilter;
 	}
 
 	@Override
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		if (!isEmpty(condition.getUsername()) && usernameFilter.definitelyAbsent(condition.getUsername())) {
+			return List.of();
+		}
 		return queryFactory
 			.select(new QMemberTeamDto(
 				member.id,
@@ -35,6 +41,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 			).from(member)
 			.leftJoin(member.team, team)
 			.where(usernameEq(condition.getUsername()),
+				usernameKeyEq(condition.getUsernameKey()),
 				teamNameEq(condition.getTeamName()),
 				ageGoe(condition.getAgeGoe()),
 				ageLoe(condition.getAgeLoe()))
@@ -45,6 +52,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 		return isEmpty(username) ? null : member.username.eq(username);
 	}
 
+	private BooleanExpression usernameKeyEq(String usernameKey) {
+		return isEmpty(usernameKey) ? null : member.usernameKey.eq(Member.toUsernameKey(usernameKey));
+	}
+
 	private BooleanExpression teamNameEq(String teamName) {
 		return isEmpty(teamName) ? null : team.name.eq(teamName);
 	}
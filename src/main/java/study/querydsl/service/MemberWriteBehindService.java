@@ -0,0 +1,295 @@
+package study.querydsl.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.entity.Member;
+import study.querydsl.event.EntityChangeBus;
+import study.querydsl.event.EntityChangeEvent;
+
+/**
+ * 같은 회원에 몰리는 작은 변경(나이 수정, 팀 이동)을 메모리에 모아 두었다가 JDBC 배치 update 로 한 번에 반영한다.
+ * 회원 id 로 나눈 stripe 마다 락과 대기 맵을 두어 서로 다른 회원의 변경은 경합하지 않고, 같은 회원의 변경은 마지막 값으로 합쳐진다.
+ * 대기 건수가 batch-size 에 닿거나 flush-interval 이 지나면 flush 하고, 종료할 때 남은 변경을 모두 flush 한다.
+ * flush 는 영속성 컨텍스트를 거치지 않으므로 이미 엔티티를 들고 있는 트랜잭션은 이 변경을 보지 못한다.
+ */
+@Slf4j
+@Service
+public class MemberWriteBehindService {
+
+	private static final int STRIPES = 16;
+	private static final int IN_CLAUSE_CHUNK = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final EntityChangeBus changeBus;
+	private final int batchSize;
+	private final Timer flushTimer;
+
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "member-write-behind");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile boolean closed;
+
+	public MemberWriteBehindService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+		EntityChangeBus changeBus, MeterRegistry meterRegistry,
+		@Value("${querydsl.write-behind.batch-size:500}") int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.transactionTemplate = transactionTemplate;
+		this.changeBus = changeBus;
+		this.batchSize = batchSize;
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe();
+		}
+		Gauge.builder("member.write_behind.pending", pending, AtomicInteger::get)
+			.description("flush 를 기다리는 회원 수")
+			.register(meterRegistry);
+		this.flushTimer = Timer.builder("member.write_behind.flush")
+			.description("write-behind flush 한 번에 걸린 시간")
+			.publishPercentiles(0.5, 0.99)
+			.register(meterRegistry);
+	}
+
+	public void changeAge(Long memberId, int age) {
+		enqueue(memberId, new PendingUpdate(age, null, false));
+	}
+
+	public void changeTeam(Long memberId, Long teamId) {
+		enqueue(memberId, new PendingUpdate(null, teamId, true));
+	}
+
+	public int getPendingCount() {
+		return pending.get();
+	}
+
+	@Scheduled(fixedDelayString = "${querydsl.write-behind.flush-interval:PT0.2S}")
+	public void flushScheduled() {
+		if (pending.get() > 0) {
+			flush();
+		}
+	}
+
+	/**
+	 * 지금까지 모인 변경을 한 트랜잭션으로 반영한다. 실패하면 그 사이 들어온 더 새로운 변경을 덮지 않도록 다시 대기열에 합친다.
+	 */
+	public void flush() {
+		flushLock.lock();
+		try {
+			Map<Long, PendingUpdate> drained = drain();
+			if (drained.isEmpty()) {
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				transactionTemplate.executeWithoutResult(status -> write(drained));
+			} catch (RuntimeException e) {
+				drained.forEach(this::requeue);
+				throw e;
+			} finally {
+				flushTimer.record(Duration.ofNanos(System.nanoTime() - start));
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@PreDestroy
+	public void close() throws InterruptedException {
+		closed = true;
+		flusher.shutdown();
+		flusher.awaitTermination(10, TimeUnit.SECONDS);
+		flush();
+	}
+
+	private void enqueue(Long memberId, PendingUpdate update) {
+		Stripe stripe = stripes[Math.floorMod(memberId.hashCode(), STRIPES)];
+		stripe.lock.lock();
+		try {
+			PendingUpdate previous = stripe.updates.get(memberId);
+			if (previous == null) {
+				stripe.updates.put(memberId, update);
+				pending.incrementAndGet();
+			} else {
+				stripe.updates.put(memberId, previous.mergedWith(update));
+			}
+		} finally {
+			stripe.lock.unlock();
+		}
+
+		if (closed) {
+			// 종료 중에 들어온 변경은 모아 두지 않고 바로 반영한다.
+			flush();
+		} else if (pending.get() >= batchSize && flushRequested.compareAndSet(false, true)) {
+			flusher.execute(() -> {
+				flushRequested.set(false);
+				try {
+					flush();
+				} catch (RuntimeException e) {
+					log.error("write-behind flush failed", e);
+				}
+			});
+		}
+	}
+
+	private void requeue(Long memberId, PendingUpdate update) {
+		Stripe stripe = stripes[Math.floorMod(memberId.hashCode(), STRIPES)];
+		stripe.lock.lock();
+		try {
+			PendingUpdate newer = stripe.updates.get(memberId);
+			if (newer == null) {
+				stripe.updates.put(memberId, update);
+				pending.incrementAndGet();
+			} else {
+				stripe.updates.put(memberId, update.mergedWith(newer));
+			}
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	private Map<Long, PendingUpdate> drain() {
+		Map<Long, PendingUpdate> drained = new LinkedHashMap<>();
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				drained.putAll(stripe.updates);
+				pending.addAndGet(-stripe.updates.size());
+				stripe.updates.clear();
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return drained;
+	}
+
+	private void write(Map<Long, PendingUpdate> updates) {
+		Map<Long, Long> currentTeams = lockMembers(updates.keySet());
+
+		List<Object[]> ageArgs = new ArrayList<>();
+		List<Object[]> teamArgs = new ArrayList<>();
+		// 동시에 도는 flush 와 ChangeCapturingJPAQueryFactory 의 벌크 변경이 team 행을 같은 순서로 잠그도록 team_id 순으로 반영한다.
+		Map<Long, Integer> teamDeltas = new TreeMap<>();
+		updates.forEach((memberId, update) -> {
+			if (!currentTeams.containsKey(memberId)) {
+				return;
+			}
+			if (update.age != null) {
+				ageArgs.add(new Object[] {update.age, memberId});
+			}
+			Long oldTeamId = currentTeams.get(memberId);
+			if (update.teamChanged && !update.sameTeam(oldTeamId)) {
+				teamArgs.add(new Object[] {update.teamId, memberId});
+				if (oldTeamId != null) {
+					teamDeltas.merge(oldTeamId, -1, Integer::sum);
+				}
+				if (update.teamId != null) {
+					teamDeltas.merge(update.teamId, 1, Integer::sum);
+				}
+			}
+		});
+
+		jdbcTemplate.batchUpdate("update member set age = ? where member_id = ?", ageArgs);
+		jdbcTemplate.batchUpdate("update member set team_id = ? where member_id = ?", teamArgs);
+		jdbcTemplate.batchUpdate("update team set member_count = member_count + ? where team_id = ?",
+			teamDeltas.entrySet().stream()
+				.filter(entry -> entry.getValue() != 0)
+				.map(entry -> new Object[] {entry.getValue(), entry.getKey()})
+				.collect(Collectors.toList()));
+
+		updates.forEach((memberId, update) -> {
+			if (currentTeams.containsKey(memberId)) {
+				changeBus.record(EntityChangeEvent.entity(Member.class, EntityChangeEvent.Type.UPDATE, memberId,
+					update.changedFields()));
+			}
+		});
+	}
+
+	/**
+	 * 반영할 회원 행을 member_id 순으로 잠그고 현재 team_id 를 읽는다. 이미 삭제된 회원은 결과에 없다.
+	 */
+	private Map<Long, Long> lockMembers(Set<Long> memberIds) {
+		Map<Long, Long> currentTeams = new HashMap<>();
+		List<Long> ids = new ArrayList<>(new TreeSet<>(memberIds));
+		for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+			List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+			namedJdbcTemplate.query(
+				"select member_id, team_id from member where member_id in (:ids) order by member_id for update",
+				Map.of("ids", chunk),
+				rs -> {
+					currentTeams.put(rs.getLong("member_id"), rs.getObject("team_id", Long.class));
+				});
+		}
+		return currentTeams;
+	}
+
+	private static class Stripe {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Map<Long, PendingUpdate> updates = new HashMap<>();
+	}
+
+	private static class PendingUpdate {
+
+		private final Integer age;
+		private final Long teamId;
+		private final boolean teamChanged;
+
+		private PendingUpdate(Integer age, Long teamId, boolean teamChanged) {
+			this.age = age;
+			this.teamId = teamId;
+			this.teamChanged = teamChanged;
+		}
+
+		private PendingUpdate mergedWith(PendingUpdate newer) {
+			return new PendingUpdate(
+				newer.age != null ? newer.age : age,
+				newer.teamChanged ? newer.teamId : teamId,
+				teamChanged || newer.teamChanged);
+		}
+
+		private boolean sameTeam(Long currentTeamId) {
+			return teamId == null ? currentTeamId == null : teamId.equals(currentTeamId);
+		}
+
+		private Set<String> changedFields() {
+			if (age != null && teamChanged) {
+				return Set.of("age", "team");
+			}
+			return age != null ? Set.of("age") : Set.of("team");
+		}
+	}
+}
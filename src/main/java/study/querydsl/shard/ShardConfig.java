@@ -0,0 +1,38 @@
+package study.querydsl.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * querydsl.shard.count 가 설정된 경우에만 샤드 저장소를 만든다.
+ * 샤드 DataSource 를 빈으로 등록하면 기본 DataSource 자동 설정이 꺼지므로 저장소 안에서만 관리한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.shard", name = "count")
+public class ShardConfig {
+
+	@Bean
+	public ShardedMemberStore shardedMemberStore(
+		@Value("${querydsl.shard.count}") int count,
+		@Value("${querydsl.shard.url-pattern:jdbc:h2:mem:member-shard-%d;DB_CLOSE_DELAY=-1}") String urlPattern,
+		@Value("${querydsl.shard.username:sa}") String username,
+		@Value("${querydsl.shard.password:}") String password) {
+		List<DataSource> dataSources = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			dataSources.add(DataSourceBuilder.create()
+				.url(String.format(urlPattern, i))
+				.username(username)
+				.password(password)
+				.build());
+		}
+		return new ShardedMemberStore(dataSources);
+	}
+}
@@ -0,0 +1,252 @@
+package study.querydsl.shard;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.sql.SMember.*;
+import static study.querydsl.sql.STeam.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+/**
+ * member/team 테이블을 N개의 DataSource 에 해시 분산 저장한다.
+ * <ul>
+ *     <li>team 은 이름의 해시로 샤드를 정하고, team_id 를 team_id % N == 샤드 번호가 되도록 발급한다.</li>
+ *     <li>팀이 있는 member 는 팀과 같은 샤드(team_id % N)에, 팀이 없는 member 는 member_id % N 샤드에 둔다.</li>
+ *     <li>teamName 조건이 있으면 그 팀의 샤드 하나만, 없으면 모든 샤드를 병렬로 조회해서 member_id 순으로 병합한다.</li>
+ * </ul>
+ * 샤드 간 트랜잭션은 없으므로 다른 샤드로의 팀 이동은 새 샤드 insert 후 기존 샤드 delete 순서로 처리한다.
+ */
+public class ShardedMemberStore implements AutoCloseable {
+
+	private final List<DataSource> dataSources;
+	private final List<SQLQueryFactory> shards = new ArrayList<>();
+	private final ExecutorService executor;
+	private final AtomicLong memberSequence;
+	private final AtomicLong teamSequence;
+
+	public ShardedMemberStore(List<DataSource> dataSources) {
+		this.dataSources = List.copyOf(dataSources);
+		for (DataSource dataSource : this.dataSources) {
+			createSchema(dataSource);
+			shards.add(new SQLQueryFactory(new Configuration(H2Templates.builder().build()), dataSource));
+		}
+		AtomicInteger sequence = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+			Thread thread = new Thread(runnable, "member-shard-" + sequence.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long maxMemberId = 0;
+		long maxTeamSequence = -1;
+		for (SQLQueryFactory shard : shards) {
+			Long memberId = shard.select(member.memberId.max()).from(member).fetchOne();
+			Long teamId = shard.select(team.teamId.max()).from(team).fetchOne();
+			maxMemberId = Math.max(maxMemberId, memberId == null ? 0 : memberId);
+			maxTeamSequence = Math.max(maxTeamSequence, teamId == null ? -1 : teamId / shards.size());
+		}
+		this.memberSequence = new AtomicLong(maxMemberId);
+		this.teamSequence = new AtomicLong(maxTeamSequence + 1);
+	}
+
+	public int shardCount() {
+		return shards.size();
+	}
+
+	public int shardOfTeamName(String teamName) {
+		return Math.floorMod(teamName.hashCode(), shards.size());
+	}
+
+	public Long saveTeam(String name) {
+		int shard = shardOfTeamName(name);
+		long teamId = teamSequence.getAndIncrement() * shards.size() + shard;
+		shards.get(shard).insert(team)
+			.set(team.teamId, teamId)
+			.set(team.name, name)
+			.execute();
+		return teamId;
+	}
+
+	public Long saveMember(String username, int age, Long teamId) {
+		long memberId = memberSequence.incrementAndGet();
+		insertMember(memberId, username, age, teamId);
+		return memberId;
+	}
+
+	public Optional<MemberTeamDto> findMember(Long memberId) {
+		return fanOut(shard -> selectMembers(shard).where(member.memberId.eq(memberId)).fetch()).stream()
+			.findFirst();
+	}
+
+	public void changeTeam(Long memberId, Long teamId) {
+		MemberTeamDto current = findMember(memberId)
+			.orElseThrow(() -> new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + memberId));
+		int from = shardOf(memberId, current.getItemId());
+		int to = shardOf(memberId, teamId);
+		if (from == to) {
+			shards.get(to).update(member)
+				.set(member.teamId, teamId)
+				.where(member.memberId.eq(memberId))
+				.execute();
+			return;
+		}
+		insertMember(memberId, current.getUsername(), current.getAge(), teamId);
+		shards.get(from).delete(member).where(member.memberId.eq(memberId)).execute();
+	}
+
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		return search(condition, 0, -1);
+	}
+
+	/**
+	 * member_id 오름차순으로 offset 부터 limit 건을 반환한다. limit 이 음수면 전부 반환한다.
+	 * 여러 샤드를 조회할 때는 샤드마다 offset + limit 건까지만 읽어 병합한다.
+	 */
+	public List<MemberTeamDto> search(MemberSearchCondition condition, long offset, long limit) {
+		if (hasText(condition.getTeamName())) {
+			SQLQuery<MemberTeamDto> query = searchQuery(shards.get(shardOfTeamName(condition.getTeamName())), condition)
+				.offset(offset);
+			return limit < 0 ? query.fetch() : query.limit(limit).fetch();
+		}
+
+		List<MemberTeamDto> merged = fanOut(shard -> {
+			SQLQuery<MemberTeamDto> query = searchQuery(shard, condition);
+			return limit < 0 ? query.fetch() : query.limit(offset + limit).fetch();
+		});
+		merged.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+		int from = (int)Math.min(offset, merged.size());
+		int to = limit < 0 ? merged.size() : (int)Math.min(offset + limit, merged.size());
+		return new ArrayList<>(merged.subList(from, to));
+	}
+
+	@Override
+	public void close() throws Exception {
+		executor.shutdown();
+		for (DataSource dataSource : dataSources) {
+			if (dataSource instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	private int shardOf(Long memberId, Long teamId) {
+		return (int)Math.floorMod(teamId != null ? teamId : memberId, (long)shards.size());
+	}
+
+	private void insertMember(long memberId, String username, int age, Long teamId) {
+		shards.get(shardOf(memberId, teamId)).insert(member)
+			.set(member.memberId, memberId)
+			.set(member.username, username)
+			.set(member.age, age)
+			.set(member.teamId, teamId)
+			.execute();
+	}
+
+	private SQLQuery<MemberTeamDto> searchQuery(SQLQueryFactory shard, MemberSearchCondition condition) {
+		return selectMembers(shard)
+			.where(usernameEq(condition.getUsername()),
+				usernameKeyEq(condition.getUsernameKey()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe()))
+			.orderBy(member.memberId.asc());
+	}
+
+	private SQLQuery<MemberTeamDto> selectMembers(SQLQueryFactory shard) {
+		return shard
+			.select(Projections.constructor(MemberTeamDto.class,
+				member.memberId,
+				member.username,
+				member.age,
+				team.teamId,
+				team.name))
+			.from(member)
+			.leftJoin(team).on(member.teamId.eq(team.teamId));
+	}
+
+	private List<MemberTeamDto> fanOut(Function<SQLQueryFactory, List<MemberTeamDto>> query) {
+		List<Future<List<MemberTeamDto>>> futures = new ArrayList<>();
+		for (SQLQueryFactory shard : shards) {
+			futures.add(executor.submit(() -> query.apply(shard)));
+		}
+		List<MemberTeamDto> result = new ArrayList<>();
+		try {
+			for (Future<List<MemberTeamDto>> future : futures) {
+				result.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("샤드 조회가 중단되었습니다.", e);
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException("샤드 조회에 실패했습니다.", e.getCause());
+		}
+		return result;
+	}
+
+	private void createSchema(DataSource dataSource) {
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("create table if not exists team ("
+				+ "team_id bigint primary key, name varchar(255))");
+			statement.execute("create table if not exists member ("
+				+ "member_id bigint primary key, username varchar(255), age integer not null, "
+				+ "team_id bigint references team (team_id))");
+			statement.execute("alter table member add column if not exists username_key varchar(255) "
+				+ "generated always as (" + Member.USERNAME_KEY_EXPRESSION + ")");
+			statement.execute("create index if not exists idx_member_team_id on member (team_id)");
+			statement.execute("create index if not exists idx_member_username_key on member (username_key)");
+		} catch (SQLException e) {
+			throw new IllegalStateException("샤드 스키마를 생성하지 못했습니다.", e);
+		}
+	}
+
+	private BooleanExpression usernameEq(String username) {
+		return hasText(username) ? member.username.eq(username) : null;
+	}
+
+	private BooleanExpression usernameKeyEq(String usernameKey) {
+		return hasText(usernameKey) ? member.usernameKey.eq(Member.toUsernameKey(usernameKey)) : null;
+	}
+
+	private BooleanExpression teamNameEq(String teamName) {
+		return hasText(teamName) ? team.name.eq(teamName) : null;
+	}
+
+	private BooleanExpression ageGoe(Integer ageGoe) {
+		return ageGoe == null ? null : member.age.goe(ageGoe);
+	}
+
+	private BooleanExpression ageLoe(Integer ageLoe) {
+		return ageLoe == null ? null : member.age.loe(ageLoe);
+	}
+}
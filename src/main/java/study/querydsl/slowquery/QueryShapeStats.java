@@ -0,0 +1,108 @@
+package study.querydsl.slowquery;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * 쿼리 모양 하나의 누적 통계와 최근 SAMPLES 건의 실행 시간 링 버퍼.
+ * 기록은 락 없이 하고, 백분위는 조회할 때 링 버퍼를 복사해서 계산한다.
+ */
+public class QueryShapeStats {
+
+	static final int SAMPLES = 256;
+
+	@Getter
+	private final String fingerprint;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder slowCount = new LongAdder();
+	private final long[] recentNanos = new long[SAMPLES];
+	private final AtomicLong cursor = new AtomicLong();
+	private final AtomicLong nextCaptureMillis = new AtomicLong();
+	@Getter
+	private volatile long lastSeenMillis;
+	@Getter
+	private volatile SlowQuerySample slowSample;
+
+	public QueryShapeStats(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	public void record(long elapsedNanos, boolean slow) {
+		count.increment();
+		totalNanos.add(elapsedNanos);
+		maxNanos.accumulate(elapsedNanos);
+		recentNanos[(int)(cursor.getAndIncrement() % SAMPLES)] = elapsedNanos;
+		lastSeenMillis = System.currentTimeMillis();
+		if (slow) {
+			slowCount.increment();
+		}
+	}
+
+	/**
+	 * 느린 실행마다 EXPLAIN 을 뜨지 않도록 모양마다 interval 에 한 번, 한 스레드만 true 를 받는다.
+	 */
+	public boolean tryStartCapture(long nowMillis, long intervalMillis) {
+		long next = nextCaptureMillis.get();
+		return nowMillis >= next && nextCaptureMillis.compareAndSet(next, nowMillis + intervalMillis);
+	}
+
+	public void setSlowSample(SlowQuerySample slowSample) {
+		this.slowSample = slowSample;
+	}
+
+	public Snapshot snapshot() {
+		int size = (int)Math.min(cursor.get(), SAMPLES);
+		long[] recent = Arrays.copyOf(recentNanos, size);
+		Arrays.sort(recent);
+		long executions = count.sum();
+		return new Snapshot(fingerprint, executions, slowCount.sum(),
+			millis(executions == 0 ? 0 : totalNanos.sum() / executions),
+			millis(percentile(recent, 0.5)), millis(percentile(recent, 0.99)), millis(maxNanos.get()),
+			millis(totalNanos.sum()), slowSample);
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[(int)Math.ceil(percentile * sorted.length) - 1];
+	}
+
+	private static double millis(long nanos) {
+		return nanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Getter
+	public static class Snapshot {
+
+		private final String fingerprint;
+		private final long count;
+		private final long slowCount;
+		private final double avgMillis;
+		private final double p50Millis;
+		private final double p99Millis;
+		private final double maxMillis;
+		private final double totalMillis;
+		private final SlowQuerySample slowSample;
+
+		private Snapshot(String fingerprint, long count, long slowCount, double avgMillis, double p50Millis,
+			double p99Millis, double maxMillis, double totalMillis, SlowQuerySample slowSample) {
+			this.fingerprint = fingerprint;
+			this.count = count;
+			this.slowCount = slowCount;
+			this.avgMillis = avgMillis;
+			this.p50Millis = p50Millis;
+			this.p99Millis = p99Millis;
+			this.maxMillis = maxMillis;
+			this.totalMillis = totalMillis;
+			this.slowSample = slowSample;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package study.querydsl.slowquery;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * GET /actuator/slowqueries 는 모양별 통계를 누적 시간 순으로, DELETE 는 통계를 비운다.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+	private final SlowQueryListener slowQueryListener;
+
+	@ReadOperation
+	public List<QueryShapeStats.Snapshot> slowQueries() {
+		return slowQueryListener.snapshots();
+	}
+
+	@DeleteOperation
+	public void reset() {
+		slowQueryListener.reset();
+	}
+}
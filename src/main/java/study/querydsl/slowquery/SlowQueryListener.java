@@ -0,0 +1,169 @@
+package study.querydsl.slowquery;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * p6spy 가 실행한 모든 문장의 시간을 SQL 모양(SqlFingerprint)별로 모은다.
+ * threshold 를 넘은 모양은 interval 마다 한 번 값이 채워진 SQL 로 H2 EXPLAIN 을 뜨고, 호출한 애플리케이션 메서드를 함께 남긴다.
+ * 모양은 max-shapes 개까지만 두고, 넘치면 가장 오래 보이지 않은 모양을 버린다.
+ */
+@Slf4j
+@Component
+public class SlowQueryListener extends SimpleJdbcEventListener {
+
+	private static final String APP_PACKAGE = "study.querydsl.";
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+	private final long thresholdNanos;
+	private final long captureIntervalMillis;
+	private final int maxShapes;
+	private final Map<String, QueryShapeStats> shapes = new ConcurrentHashMap<>();
+	private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+	public SlowQueryListener(@Value("${querydsl.slow-query.threshold:100ms}") Duration threshold,
+		@Value("${querydsl.slow-query.capture-interval:5m}") Duration captureInterval,
+		@Value("${querydsl.slow-query.max-shapes:500}") int maxShapes) {
+		this.thresholdNanos = threshold.toNanos();
+		this.captureIntervalMillis = captureInterval.toMillis();
+		this.maxShapes = maxShapes;
+	}
+
+	@Override
+	public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+		String sql = statementInformation.getSql();
+		if (sql == null || sql.isBlank()) {
+			return;
+		}
+		boolean slow = timeElapsedNanos >= thresholdNanos;
+		QueryShapeStats stats = shape(fingerprint(sql));
+		stats.record(timeElapsedNanos, slow);
+		if (slow && stats.tryStartCapture(System.currentTimeMillis(), captureIntervalMillis)) {
+			capture(stats, statementInformation, timeElapsedNanos);
+		}
+	}
+
+	public List<QueryShapeStats.Snapshot> snapshots() {
+		return shapes.values().stream()
+			.map(QueryShapeStats::snapshot)
+			.sorted(Comparator.comparingDouble(QueryShapeStats.Snapshot::getTotalMillis).reversed())
+			.collect(Collectors.toList());
+	}
+
+	public Collection<QueryShapeStats> getShapes() {
+		return shapes.values();
+	}
+
+	public void reset() {
+		shapes.clear();
+	}
+
+	private String fingerprint(String sql) {
+		// Hibernate 가 만드는 SQL 문자열 종류는 많지 않으므로 원문 단위로 캐시한다. 리터럴이 박힌 문장이 쏟아지면 비운다.
+		if (fingerprints.size() >= maxShapes * 4) {
+			fingerprints.clear();
+		}
+		return fingerprints.computeIfAbsent(sql, SqlFingerprint::of);
+	}
+
+	private QueryShapeStats shape(String fingerprint) {
+		QueryShapeStats stats = shapes.get(fingerprint);
+		if (stats == null) {
+			if (shapes.size() >= maxShapes) {
+				evictLeastRecentlySeen();
+			}
+			stats = shapes.computeIfAbsent(fingerprint, QueryShapeStats::new);
+		}
+		return stats;
+	}
+
+	private synchronized void evictLeastRecentlySeen() {
+		if (shapes.size() < maxShapes) {
+			return;
+		}
+		shapes.values().stream()
+			.min(Comparator.comparingLong(QueryShapeStats::getLastSeenMillis))
+			.ifPresent(oldest -> shapes.remove(oldest.getFingerprint(), oldest));
+	}
+
+	private void capture(QueryShapeStats stats, StatementInformation statementInformation, long timeElapsedNanos) {
+		String sqlWithValues = statementInformation.getSqlWithValues();
+		String plan = explain(statementInformation.getConnectionInformation().getConnection(), sqlWithValues);
+		double elapsedMillis = timeElapsedNanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+		stats.setSlowSample(new SlowQuerySample(Instant.now(), sqlWithValues, elapsedMillis, plan, origin()));
+		log.warn("slow query {}ms: {}", elapsedMillis, stats.getFingerprint());
+	}
+
+	/**
+	 * p6spy 가 감싸기 전의 커넥션으로 실행하므로 EXPLAIN 자체는 다시 이 리스너로 들어오지 않는다.
+	 * use_sql_comments 가 앞에 붙인 주석은 걷어내고 문장 종류를 본다.
+	 */
+	private String explain(Connection connection, String sql) {
+		String statementSql = stripLeadingComments(sql);
+		String head = statementSql.toLowerCase(Locale.ROOT);
+		if (!(head.startsWith("select") || head.startsWith("with") || head.startsWith("update")
+			|| head.startsWith("delete") || head.startsWith("insert") || head.startsWith("merge"))) {
+			return null;
+		}
+		try (Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("explain " + statementSql)) {
+			StringBuilder plan = new StringBuilder();
+			while (rs.next()) {
+				plan.append(rs.getString(1)).append('\n');
+			}
+			return plan.toString().trim();
+		} catch (SQLException e) {
+			return "explain failed: " + e.getMessage();
+		}
+	}
+
+	private static String stripLeadingComments(String sql) {
+		String stripped = sql.stripLeading();
+		while (stripped.startsWith("/*")) {
+			int end = stripped.indexOf("*/");
+			if (end < 0) {
+				return "";
+			}
+			stripped = stripped.substring(end + 2).stripLeading();
+		}
+		return stripped;
+	}
+
+	/**
+	 * 호출 스택에서 가장 가까운 리포지토리 메서드를, 없으면 가장 가까운 애플리케이션 메서드를 찾는다.
+	 */
+	private String origin() {
+		List<StackWalker.StackFrame> frames = STACK_WALKER.walk(stream -> stream
+			.filter(frame -> frame.getClassName().startsWith(APP_PACKAGE)
+				&& !frame.getClassName().startsWith(SlowQueryListener.class.getPackageName())
+				&& !frame.getClassName().contains("$$"))
+			.limit(16)
+			.collect(Collectors.toList()));
+		return frames.stream()
+			.filter(frame -> frame.getClassName().contains(".repository."))
+			.findFirst()
+			.or(() -> frames.stream().findFirst())
+			.map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+			.orElse(null);
+	}
+}
@@ -0,0 +1,26 @@
+package study.querydsl.slowquery;
+
+import java.time.Instant;
+
+import lombok.Getter;
+
+/**
+ * 임계값을 넘은 실행 한 건: 값이 채워진 SQL, 걸린 시간, H2 EXPLAIN 결과, 호출한 애플리케이션 메서드.
+ */
+@Getter
+public class SlowQuerySample {
+
+	private final Instant capturedAt;
+	private final String sql;
+	private final double elapsedMillis;
+	private final String plan;
+	private final String origin;
+
+	public SlowQuerySample(Instant capturedAt, String sql, double elapsedMillis, String plan, String origin) {
+		this.capturedAt = capturedAt;
+		this.sql = sql;
+		this.elapsedMillis = elapsedMillis;
+		this.plan = plan;
+		this.origin = origin;
+	}
+}
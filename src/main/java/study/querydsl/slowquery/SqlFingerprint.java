@@ -0,0 +1,114 @@
+package study.querydsl.slowquery;
+
+/**
+ * SQL 에서 리터럴과 주석을 걷어내 같은 모양의 쿼리를 하나로 묶는 키를 만든다.
+ * 문자열/숫자 리터럴은 ? 로 바꾸고, in (?, ?, ...) 목록은 개수와 상관없이 in (?+) 로 접고, 공백은 한 칸으로 줄이고 소문자로 맞춘다.
+ */
+public final class SqlFingerprint {
+
+	private SqlFingerprint() {
+	}
+
+	public static String of(String sql) {
+		StringBuilder out = new StringBuilder(sql.length());
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				i = skipQuoted(sql, i);
+				appendPlaceholder(out);
+			} else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				int end = sql.indexOf("*/", i + 2);
+				i = end < 0 ? length : end + 2;
+				appendSpace(out);
+			} else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				int end = sql.indexOf('\n', i);
+				i = end < 0 ? length : end + 1;
+				appendSpace(out);
+			} else if (Character.isWhitespace(c)) {
+				appendSpace(out);
+				i++;
+			} else if (isNumberStart(sql, i, out)) {
+				i = skipNumber(sql, i);
+				appendPlaceholder(out);
+			} else if (c == '?') {
+				appendPlaceholder(out);
+				i++;
+			} else {
+				out.append(Character.toLowerCase(c));
+				i++;
+			}
+		}
+		return collapseInLists(out.toString().trim());
+	}
+
+	private static int skipQuoted(String sql, int start) {
+		int i = start + 1;
+		while (i < sql.length()) {
+			if (sql.charAt(i) == '\'') {
+				if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+					i += 2;
+					continue;
+				}
+				return i + 1;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * 식별자 중간의 숫자(member0_, t1)는 남기고 독립된 숫자 리터럴만 걷어낸다.
+	 */
+	private static boolean isNumberStart(String sql, int i, StringBuilder out) {
+		char c = sql.charAt(i);
+		boolean digit = Character.isDigit(c)
+			|| (c == '-' || c == '.') && i + 1 < sql.length() && Character.isDigit(sql.charAt(i + 1));
+		if (!digit) {
+			return false;
+		}
+		if (out.length() == 0) {
+			return true;
+		}
+		char previous = out.charAt(out.length() - 1);
+		if (c == '-' && (Character.isLetterOrDigit(previous) || previous == '?' || previous == ')')) {
+			// a-1 의 - 는 연산자다.
+			return false;
+		}
+		return !(Character.isLetterOrDigit(previous) || previous == '_' || previous == '$' || previous == '.'
+			|| previous == '"');
+	}
+
+	private static int skipNumber(String sql, int start) {
+		int i = start + 1;
+		while (i < sql.length()) {
+			char c = sql.charAt(i);
+			if (Character.isLetterOrDigit(c) || c == '.') {
+				i++;
+			} else if ((c == '+' || c == '-') && (sql.charAt(i - 1) == 'e' || sql.charAt(i - 1) == 'E')) {
+				i++;
+			} else {
+				break;
+			}
+		}
+		return i;
+	}
+
+	private static void appendPlaceholder(StringBuilder out) {
+		out.append('?');
+	}
+
+	private static void appendSpace(StringBuilder out) {
+		if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+			out.append(' ');
+		}
+	}
+
+	/**
+	 * in 바로 뒤의 괄호만 접는다. lower(?), coalesce(?, ?) 같은 함수 인자는 그대로 둔다.
+	 */
+	private static String collapseInLists(String sql) {
+		return sql.replaceAll("(\\bin\\s*)\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)", "$1(?+)");
+	}
+}
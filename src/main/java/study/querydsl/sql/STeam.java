@@ -0,0 +1,30 @@
+package study.querydsl.sql;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import java.sql.Types;
+
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+/**
+ * Team 엔티티가 매핑된 team 테이블의 querydsl-sql 메타모델.
+ */
+public class STeam extends RelationalPathBase<STeam> {
+
+	public static final STeam team = new STeam("t");
+
+	public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+	public final StringPath name = createString("name");
+
+	public final PrimaryKey<STeam> primary = createPrimaryKey(teamId);
+
+	public STeam(String variable) {
+		super(STeam.class, forVariable(variable), "PUBLIC", "TEAM");
+		addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(1).ofType(Types.BIGINT).notNull());
+		addMetadata(name, ColumnMetadata.named("NAME").withIndex(2).ofType(Types.VARCHAR));
+	}
+}
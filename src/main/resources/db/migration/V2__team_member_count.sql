@@ -0,0 +1,4 @@
+alter table team add column member_count integer default 0 not null;
+
+update team
+set member_count = (select count(*) from member m where m.team_id = team.team_id);
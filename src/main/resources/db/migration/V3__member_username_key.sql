@@ -0,0 +1,4 @@
+alter table member add column username_key varchar(255)
+    generated always as (regexp_replace(lower(username), '[^\p{L}\p{N}]', ''));
+
+create index idx_member_username_key on member (username_key);
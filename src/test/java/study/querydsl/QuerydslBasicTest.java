@@ -26,6 +26,9 @@ import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
 import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberDtoProjection;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
@@ -328,6 +331,28 @@ public class QuerydslBasicTest {
 				.from(member).fetch();
 	}
 
+	@Test
+	void queryDtoDirectProjection() {
+		List<MemberDto> result = queryFactory
+				.select(new MemberDtoProjection(member.username, member.age))
+				.from(member)
+				.orderBy(member.age.asc())
+				.fetch();
+		assertThat(result).extracting("username")
+				.containsExactly("member1", "member2", "member3", "member4");
+
+		List<MemberTeamDto> teamResult = queryFactory
+				.select(new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name))
+				.from(member)
+				.join(member.team, team)
+				.where(team.name.eq("teamB"))
+				.fetch();
+		assertThat(teamResult).extracting("teamName")
+				.containsOnly("teamB");
+		assertThat(teamResult).extracting("age")
+				.containsExactlyInAnyOrder(30, 40);
+	}
+
 	@Test
 	void 동적쿼리_booleanBuilder() {
 		String usernameParam = "member1";
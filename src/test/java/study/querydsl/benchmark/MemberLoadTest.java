@@ -0,0 +1,374 @@
+package study.querydsl.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import study.querydsl.QuerydslApplication;
+
+/**
+ * 애플리케이션 전체(Tomcat, Jackson, Hikari, Hibernate, H2)를 거치는 /v1/members 부하 테스트.
+ * prod 프로필(Flyway 스키마)로 인메모리 H2 에 members 명을 채워 같은 JVM 에서 띄우고,
+ * 응답과 상관없이 평균 rate req/s 의 포아송 도착으로 요청을 보낸다(open model).
+ * 지연은 요청을 보냈어야 할 시각부터 재므로 서버가 밀려도 대기 시간이 빠지지 않는다(coordinated omission 보정).
+ * 조건 모양별/전체 HDR 히스토그램을 build/load-test 에 남긴다.
+ * 마지막 응답까지 걸린 시간으로 잰 성공 처리량이 rate 의 (1 - tolerance) 에 못 미치거나, 지연/오류가 저장된 기준값보다
+ * 나빠지면 실패한다. 기준값이 없거나 다른 members/rate 로 기록된 경우에도 -PloadTest.updateBaseline=true 가 아니면 실패한다.
+ *
+ * ./gradlew loadTest [-PloadTest.members=100000] [-PloadTest.rate=500] [-PloadTest.duration=60]
+ *                    [-PloadTest.tolerance=0.2] [-PloadTest.updateBaseline=true]
+ */
+public class MemberLoadTest {
+
+	private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+	private static final double MIN_REGRESSION_MILLIS = 1.0;
+	private static final double[] PERCENTILES = {50, 99, 99.9};
+
+	/**
+	 * 실제 검색에서 보이는 MemberSearchCondition 모양과 비율. 결과 행 수는 기본 100k 회원 기준이다.
+	 */
+	enum Shape {
+		// 정확한 username 으로 한 명
+		USERNAME(30, (random, members) -> "username=member" + random.nextInt(members)),
+		// 없는 username, querydsl.username-filter.short-circuit 을 켜면 Bloom filter 에서 끝난다
+		USERNAME_MISS(10, (random, members) -> "username=guest" + random.nextInt(members)),
+		// 대소문자/기호가 섞인 입력을 username_key 로
+		USERNAME_KEY(15, (random, members) -> "usernameKey=Member_" + random.nextInt(members)),
+		// 팀 + 나이 10살 구간, 약 100행
+		TEAM_AGE(25, (random, members) -> {
+			int age = random.nextInt(MemberSeedData.AGES - 10);
+			return "teamName=team" + (1 + random.nextInt(MemberSeedData.TEAMS)) + "&ageGoe=" + age + "&ageLoe=" + (age + 9);
+		}),
+		// 팀 전체, 약 1000행
+		TEAM(10, (random, members) -> "teamName=team" + (1 + random.nextInt(MemberSeedData.TEAMS))),
+		// 나이 하나, 약 1000행
+		AGE(10, (random, members) -> {
+			int age = random.nextInt(MemberSeedData.AGES);
+			return "ageGoe=" + age + "&ageLoe=" + age;
+		});
+
+		private final int weight;
+		private final BiFunction<Random, Integer, String> query;
+
+		Shape(int weight, BiFunction<Random, Integer, String> query) {
+			this.weight = weight;
+			this.query = query;
+		}
+
+		static Shape pick(Random random) {
+			int total = 0;
+			for (Shape shape : values()) {
+				total += shape.weight;
+			}
+			int point = random.nextInt(total);
+			for (Shape shape : values()) {
+				point -= shape.weight;
+				if (point < 0) {
+					return shape;
+				}
+			}
+			throw new IllegalStateException();
+		}
+	}
+
+	private final int members = Integer.getInteger("loadTest.members", 100_000);
+	private final int rate = Integer.getInteger("loadTest.rate", 500);
+	private final int durationSeconds = Integer.getInteger("loadTest.duration", 60);
+	private final int warmupSeconds = Integer.getInteger("loadTest.warmup", 20);
+	private final int maxOutstanding = Integer.getInteger("loadTest.maxOutstanding", 5_000);
+	private final double tolerance = Double.parseDouble(System.getProperty("loadTest.tolerance", "0.2"));
+	private final boolean updateBaseline = Boolean.getBoolean("loadTest.updateBaseline");
+	private final Path baselineFile = Path.of(System.getProperty("loadTest.baseline", "load-test-baseline.properties"));
+	private final Path reportDir = Path.of(System.getProperty("loadTest.reportDir", "build/load-test"));
+	private final HttpClient client = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.executor(Executors.newFixedThreadPool(8))
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+
+	public static void main(String[] args) throws Exception {
+		boolean passed;
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+			.properties(
+				"spring.profiles.active=prod",
+				"server.port=0",
+				"querydsl.reactive.port=0",
+				"spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+				"logging.level.root=warn",
+				"logging.level.org.hibernate.SQL=warn")
+			.run()) {
+			passed = new MemberLoadTest().run(context);
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	private boolean run(ConfigurableApplicationContext context) throws Exception {
+		MemberSeedData.seed(context, members);
+		int port = ((WebServerApplicationContext)context).getWebServer().getPort();
+		String baseUri = "http://localhost:" + port + "/v1/members?";
+
+		System.out.printf("members=%d rate=%d/s duration=%ds warmup=%ds%n", members, rate, durationSeconds,
+			warmupSeconds);
+		// JIT, 커넥션 풀, Hibernate 쿼리 계획 캐시를 데운 뒤 결과를 버린다.
+		drive(baseUri, warmupSeconds, new Random(1));
+		Result result = drive(baseUri, durationSeconds, new Random(2));
+
+		Properties current = result.toProperties();
+		current.setProperty("members", String.valueOf(members));
+		current.setProperty("rate", String.valueOf(rate));
+		result.print();
+		result.writeHistograms();
+		if (!sustainedRate(result)) {
+			return false;
+		}
+		if (updateBaseline) {
+			store(current, baselineFile);
+			System.out.println("baseline updated: " + baselineFile.toAbsolutePath());
+			return true;
+		}
+		return compareWithBaseline(current);
+	}
+
+	/**
+	 * seconds 동안 지수 분포 간격으로 요청을 보내고 모든 응답을 기다린다. 보낼 시각은 미리 정해 두고 밀려도 당기지 않는다.
+	 */
+	private Result drive(String baseUri, int seconds, Random random) throws Exception {
+		Result result = new Result();
+		List<CompletableFuture<Void>> pending = new ArrayList<>();
+		AtomicInteger outstanding = new AtomicInteger();
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(seconds);
+		double meanIntervalNanos = 1e9 / rate;
+		long intended = start;
+		while (true) {
+			intended += (long)(-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+			if (intended >= end) {
+				break;
+			}
+			long wait;
+			while ((wait = intended - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			Shape shape = Shape.pick(random);
+			if (outstanding.get() >= maxOutstanding) {
+				// 서버가 rate 를 감당하지 못해 보내지 못한 요청도 오류로 센다.
+				result.failed(shape);
+				continue;
+			}
+			HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + shape.query.apply(random, members)))
+				.timeout(Duration.ofMinutes(1))
+				.build();
+			long sentAt = intended;
+			outstanding.incrementAndGet();
+			pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.handle((response, failure) -> {
+					outstanding.decrementAndGet();
+					if (failure != null || response.statusCode() != 200) {
+						result.failed(shape);
+					} else {
+						result.record(shape, System.nanoTime() - sentAt);
+					}
+					return null;
+				}));
+		}
+		CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+		result.finish(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * 요청 도착 간격은 미리 정해지므로 보낸 요청 수는 서버와 상관없이 rate 를 따른다.
+	 * 서버가 따라왔는지는 성공한 응답 수를 마지막 응답까지 걸린 시간으로 나눈 처리량으로 본다.
+	 */
+	private boolean sustainedRate(Result result) {
+		double achieved = result.achievedRate();
+		boolean sustained = achieved >= rate * (1 - tolerance);
+		System.out.printf("%nachieved %.1f req/s of requested %d req/s (tolerance %.0f%%) %s%n", achieved, rate,
+			tolerance * 100, sustained ? "" : "FAILED");
+		return sustained;
+	}
+
+	/**
+	 * 지연(p50/p99/p99.9)이 기준값보다 tolerance 비율과 1ms 를 모두 넘게 늘었거나, 오류가 늘면 실패로 본다.
+	 * 비교할 기준값이 없으면 회귀를 확인하지 못한 것이므로 실패로 본다.
+	 */
+	private boolean compareWithBaseline(Properties current) throws IOException {
+		if (!Files.exists(baselineFile)) {
+			System.out.println("baseline not found, run with -PloadTest.updateBaseline=true to create "
+				+ baselineFile.toAbsolutePath());
+			return false;
+		}
+		Properties baseline = load(baselineFile);
+		if (!current.getProperty("members").equals(baseline.getProperty("members"))
+			|| !current.getProperty("rate").equals(baseline.getProperty("rate"))) {
+			System.out.printf("baseline was recorded with members=%s rate=%s, rerun with those values"
+				+ " or -PloadTest.updateBaseline=true%n", baseline.getProperty("members"), baseline.getProperty("rate"));
+			return false;
+		}
+
+		boolean passed = true;
+		System.out.printf("%nvs baseline (tolerance %.0f%%)%n", tolerance * 100);
+		for (String key : new TreeSet<>(baseline.stringPropertyNames())) {
+			if (!key.endsWith("_ms") && !key.endsWith(".errors")) {
+				continue;
+			}
+			double before = Double.parseDouble(baseline.getProperty(key));
+			double after = Double.parseDouble(current.getProperty(key, "NaN"));
+			boolean regressed;
+			if (key.endsWith("_ms")) {
+				regressed = after > before * (1 + tolerance) && after - before > MIN_REGRESSION_MILLIS;
+			} else {
+				regressed = after > before;
+			}
+			regressed |= Double.isNaN(after);
+			passed &= !regressed;
+			System.out.printf("%-28s %10.2f -> %10.2f %+7.1f%% %s%n", key, before, after,
+				before == 0 ? 0 : (after - before) / before * 100, regressed ? "REGRESSION" : "");
+		}
+		System.out.println(passed ? "PASSED" : "FAILED");
+		return passed;
+	}
+
+	private static Properties load(Path file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file)) {
+			properties.load(reader);
+		}
+		return properties;
+	}
+
+	private static void store(Properties properties, Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file)) {
+			properties.store(writer, "MemberLoadTest baseline (./gradlew loadTest -PloadTest.updateBaseline=true)");
+		}
+	}
+
+	/**
+	 * 측정 구간 하나의 결과. 지연은 마이크로초로 기록하고, 처리량은 마지막 응답까지 걸린 시간으로 나눈다.
+	 */
+	private class Result {
+
+		private final Histogram all = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+		private final Map<Shape, Histogram> byShape = new EnumMap<>(Shape.class);
+		private final Map<Shape, LongAdder> errors = new EnumMap<>(Shape.class);
+
+		private long elapsedNanos;
+
+		Result() {
+			for (Shape shape : Shape.values()) {
+				byShape.put(shape, new ConcurrentHistogram(HIGHEST_MICROS, 3));
+				errors.put(shape, new LongAdder());
+			}
+		}
+
+		void record(Shape shape, long nanos) {
+			long micros = Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos));
+			all.recordValue(micros);
+			byShape.get(shape).recordValue(micros);
+		}
+
+		void failed(Shape shape) {
+			errors.get(shape).increment();
+		}
+
+		void finish(long elapsedNanos) {
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		double achievedRate() {
+			return perSecond(all);
+		}
+
+		private double perSecond(Histogram histogram) {
+			return histogram.getTotalCount() / (elapsedNanos / 1e9);
+		}
+
+		void print() {
+			System.out.printf("%n%-14s %8s %7s %9s %9s %9s %9s %9s%n",
+				"shape", "count", "errors", "req/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+			for (Shape shape : Shape.values()) {
+				print(shape.name(), byShape.get(shape), errors.get(shape).sum());
+			}
+			print("ALL", all, totalErrors());
+		}
+
+		private void print(String name, Histogram histogram, long errorCount) {
+			System.out.printf("%-14s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+				name, histogram.getTotalCount(), errorCount, perSecond(histogram),
+				millisAt(histogram, 50), millisAt(histogram, 99), millisAt(histogram, 99.9),
+				histogram.getMaxValue() / 1000.0);
+		}
+
+		/**
+		 * HdrHistogram percentile distribution 형식(ms). HistogramLogAnalyzer 나 hdrhistogram.github.io 에서 그래프로 볼 수 있다.
+		 */
+		void writeHistograms() throws IOException {
+			Files.createDirectories(reportDir);
+			write("all", all);
+			for (Shape shape : Shape.values()) {
+				write(shape.name().toLowerCase(), byShape.get(shape));
+			}
+			System.out.println("histograms: " + reportDir.toAbsolutePath());
+		}
+
+		private void write(String name, Histogram histogram) throws IOException {
+			try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve(name + ".hgrm")))) {
+				histogram.outputPercentileDistribution(out, 1000.0);
+			}
+		}
+
+		Properties toProperties() {
+			Properties properties = new Properties();
+			put(properties, "all", all, totalErrors());
+			for (Shape shape : Shape.values()) {
+				put(properties, shape.name().toLowerCase(), byShape.get(shape), errors.get(shape).sum());
+			}
+			return properties;
+		}
+
+		private void put(Properties properties, String prefix, Histogram histogram, long errorCount) {
+			properties.setProperty(prefix + ".errors", String.valueOf(errorCount));
+			for (double percentile : PERCENTILES) {
+				String name = percentile == 99.9 ? "p999" : "p" + (int)percentile;
+				properties.setProperty(prefix + "." + name + "_ms", String.format(Locale.ROOT, "%.2f", millisAt(histogram, percentile)));
+			}
+		}
+
+		private long totalErrors() {
+			return errors.values().stream().mapToLong(LongAdder::sum).sum();
+		}
+
+		private double millisAt(Histogram histogram, double percentile) {
+			return histogram.getValueAtPercentile(percentile) / 1000.0;
+		}
+	}
+}
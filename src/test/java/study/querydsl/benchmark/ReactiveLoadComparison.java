@@ -0,0 +1,148 @@
+package study.querydsl.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import study.querydsl.QuerydslApplication;
+import study.querydsl.controller.MemberStreamServer;
+
+/**
+ * 같은 검색 조건으로 Tomcat 의 서블릿 경로(/v1/members, JDBC)와 Reactor Netty 의 스트리밍 경로(/v1/members/stream, R2DBC)에
+ * 동시 요청을 보내 처리량, p50/p99 지연, 실행 중 최대 스레드 수를 비교한다. 애플리케이션은 인메모리 H2 로 같은 JVM 에서 띄운다.
+ * 두 서버가 한 JVM 에 있으므로 JVM 전체 최대 스레드 수와 함께 각 서버의 요청 처리 스레드(Tomcat http-nio-*-exec-*,
+ * Netty reactor-http-*)의 최대 수를 따로 센다. Tomcat 스레드는 한 번 늘면 한동안 남으므로 스트리밍 경로를 먼저 잰다.
+ *
+ * ./gradlew reactiveLoadComparison [-PloadComparison.concurrency=512] [-PloadComparison.requests=20000]
+ */
+public class ReactiveLoadComparison {
+
+	private final int members = Integer.getInteger("loadComparison.members", 100_000);
+	private final int concurrency = Integer.getInteger("loadComparison.concurrency", 512);
+	private final int requests = Integer.getInteger("loadComparison.requests", 20_000);
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private final HttpClient client = HttpClient.newBuilder()
+		.executor(Executors.newFixedThreadPool(8))
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+
+	public static void main(String[] args) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+			.properties(
+				"spring.profiles.active=bench",
+				"server.port=0",
+				"querydsl.reactive.port=0",
+				"server.tomcat.threads.max=200",
+				"spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+				"querydsl.reactive.pool-size=20",
+				"decorator.datasource.enabled=false",
+				"logging.level.root=warn",
+				"logging.level.org.hibernate.SQL=warn")
+			.run()) {
+			new ReactiveLoadComparison().run(context);
+		}
+		System.exit(0);
+	}
+
+	private void run(ConfigurableApplicationContext context) throws Exception {
+		MemberSeedData.seed(context, members);
+		int servletPort = ((WebServerApplicationContext)context).getWebServer().getPort();
+		int streamPort = context.getBean(MemberStreamServer.class).getPort();
+		String query = "?teamName=team7&ageGoe=10&ageLoe=60";
+		URI servlet = URI.create("http://localhost:" + servletPort + "/v1/members" + query);
+		URI stream = URI.create("http://localhost:" + streamPort + "/v1/members/stream" + query);
+
+		System.out.printf("members=%d concurrency=%d requests=%d%n", members, concurrency, requests);
+		// JIT 와 커넥션 풀을 데운 뒤 측정한다.
+		load(stream, requests / 10);
+		report("netty r2dbc /stream", stream, "reactor-http-");
+		load(servlet, requests / 10);
+		report("tomcat jdbc /v1/members", servlet, "http-nio-" + servletPort + "-exec-");
+	}
+
+	private void report(String name, URI uri, String serverThreadPrefix) throws Exception {
+		threads.resetPeakThreadCount();
+		AtomicInteger peakServerThreads = new AtomicInteger();
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		sampler.scheduleAtFixedRate(() -> peakServerThreads.accumulateAndGet(countThreads(serverThreadPrefix), Math::max),
+			0, 20, TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+		long[] latencies;
+		try {
+			latencies = load(uri, requests);
+		} finally {
+			sampler.shutdownNow();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		Arrays.sort(latencies);
+		System.out.printf("%-26s %8.0f req/s p50=%6.1fms p99=%6.1fms max=%6.1fms peakThreads=%d serverThreads=%d%n",
+			name, requests / seconds,
+			millis(latencies[latencies.length / 2]),
+			millis(latencies[(int)Math.ceil(latencies.length * 0.99) - 1]),
+			millis(latencies[latencies.length - 1]),
+			threads.getPeakThreadCount(),
+			peakServerThreads.get());
+	}
+
+	private int countThreads(String namePrefix) {
+		int count = 0;
+		for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0)) {
+			if (info != null && info.getThreadName().startsWith(namePrefix)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * concurrency 개의 가상 사용자가 응답을 받자마자 다음 요청을 보낸다(closed model).
+	 */
+	private long[] load(URI uri, int total) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(1)).build();
+		long[] latencies = new long[total];
+		AtomicInteger next = new AtomicInteger();
+		List<CompletableFuture<Void>> users = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			users.add(send(request, next, total, latencies));
+		}
+		CompletableFuture.allOf(users.toArray(CompletableFuture[]::new)).get(10, TimeUnit.MINUTES);
+		return latencies;
+	}
+
+	private CompletableFuture<Void> send(HttpRequest request, AtomicInteger next, int total, long[] latencies) {
+		int index = next.getAndIncrement();
+		if (index >= total) {
+			return CompletableFuture.completedFuture(null);
+		}
+		long start = System.nanoTime();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+			.thenCompose(response -> {
+				if (response.statusCode() != 200) {
+					throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+				}
+				latencies[index] = System.nanoTime() - start;
+				return send(request, next, total, latencies);
+			});
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+}
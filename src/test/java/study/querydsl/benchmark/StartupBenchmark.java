@@ -0,0 +1,105 @@
+package study.querydsl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 애플리케이션을 별도 JVM 으로 띄워 MemberController(/v1/members)의 첫 200 응답까지 걸린 시간을 잰다.
+ * 기본(local) 기동, prod 프로필, prod 프로필 + AppCDS 아카이브를 각각 여러 번 실행해 비교한다.
+ *
+ * ./gradlew startupBenchmark [-PstartupBenchmark.runs=5]
+ */
+public class StartupBenchmark {
+
+	private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+	private final String javaCommand = ProcessHandle.current().info().command().orElse("java");
+	private final String appClasspath = System.getProperty("benchmark.appClasspath");
+	private final String cdsArchive = System.getProperty("benchmark.cdsArchive");
+	private final int runs = Integer.getInteger("benchmark.runs", 5);
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+	public static void main(String[] args) throws Exception {
+		new StartupBenchmark().run();
+	}
+
+	private void run() throws Exception {
+		report("local (ddl-auto create, eager)", List.of(), "local");
+		report("prod (flyway, lazy init)", List.of(), "prod");
+		if (cdsArchive != null && new File(cdsArchive).exists()) {
+			report("prod + AppCDS", List.of("-XX:SharedArchiveFile=" + cdsArchive), "prod");
+		} else {
+			System.out.println("AppCDS archive not found, run ./gradlew cdsArchive first: " + cdsArchive);
+		}
+	}
+
+	private void report(String name, List<String> jvmOptions, String profile) throws Exception {
+		List<Long> millis = new ArrayList<>();
+		for (int i = 0; i < runs; i++) {
+			millis.add(timeToFirstRequest(jvmOptions, profile));
+		}
+		Collections.sort(millis);
+		System.out.printf("%-32s min=%5dms median=%5dms max=%5dms%n",
+			name, millis.get(0), millis.get(millis.size() / 2), millis.get(millis.size() - 1));
+	}
+
+	private long timeToFirstRequest(List<String> jvmOptions, String profile) throws Exception {
+		int port = freePort();
+		List<String> command = new ArrayList<>();
+		command.add(javaCommand);
+		command.addAll(jvmOptions);
+		command.addAll(List.of(
+			"-cp", appClasspath,
+			"study.querydsl.QuerydslApplication",
+			"--spring.profiles.active=" + profile,
+			"--server.port=" + port,
+			"--querydsl.reactive.port=0",
+			"--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1"));
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command)
+			.redirectErrorStream(true)
+			.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+			.start();
+		try {
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/members"))
+				.timeout(Duration.ofSeconds(5))
+				.build();
+			while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("application exited with " + process.exitValue());
+				}
+				try {
+					if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					}
+				} catch (IOException e) {
+					// 아직 포트가 열리지 않았다.
+				}
+				Thread.sleep(10);
+			}
+			throw new IllegalStateException("no response within " + TIMEOUT);
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package study.querydsl.bloom;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest(properties = "querydsl.username-filter.short-circuit=true")
+@Transactional
+class UsernameBloomFilterShortCircuitTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+	@Autowired
+	MemberRepository memberRepository;
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void missesAreAnsweredWithoutQuery() {
+		double missesBefore = misses();
+
+		assertThat(memberJpaRepository.findByUsername("bloom-no-such-member")).isEmpty();
+		assertThat(memberJpaRepository.search(condition("bloom-no-such-member"))).isEmpty();
+
+		assertThat(misses() - missesBefore).isEqualTo(2);
+	}
+
+	@Test
+	void mergedBatchMissesAreAnsweredWithoutQuery() {
+		double missesBefore = misses();
+
+		List<List<MemberTeamDto>> result = memberJpaRepository.searchBatch(
+			List.of(condition("bloom-no-such-member1"), condition("bloom-no-such-member2")));
+
+		assertThat(result).containsExactly(List.of(), List.of());
+		assertThat(misses() - missesBefore).isEqualTo(2);
+	}
+
+	@Test
+	void pendingInsertIsNotShortCircuited() {
+		em.persist(new Member("bloomPending", 20));
+
+		List<Member> result = memberJpaRepository.findByUsername_Querydsl("bloomPending");
+
+		assertThat(result).extracting("age").containsExactly(20);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void searchWithoutTransaction() {
+		assertThat(memberJpaRepository.search(condition("bloom-no-such-member"))).isEmpty();
+		assertThat(memberRepository.search(condition("bloom-no-such-member"))).isEmpty();
+	}
+
+	private MemberSearchCondition condition(String username) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername(username);
+		return condition;
+	}
+
+	private double misses() {
+		return meterRegistry.get("member.username_filter.lookups").tag("result", "miss").counter().count();
+	}
+}
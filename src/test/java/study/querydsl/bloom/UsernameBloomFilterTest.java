@@ -0,0 +1,102 @@
+package study.querydsl.bloom;
+
+import static org.assertj.core.api.Assertions.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+@SpringBootTest
+@Transactional
+class UsernameBloomFilterTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	UsernameBloomFilter usernameFilter;
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void noFalseNegativesAndBoundedFalsePositives() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("member" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("member" + i)).isTrue();
+		}
+		long falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("absent" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+		assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+	}
+
+	@Test
+	void insertsAndRenamesAreVisibleAfterFlush() {
+		Member member = new Member("bloomMember", 10);
+		em.persist(member);
+		em.flush();
+		assertThat(usernameFilter.mightContain("bloomMember")).isTrue();
+
+		member.setUsername("bloomRenamed");
+		em.flush();
+		assertThat(usernameFilter.mightContain("bloomRenamed")).isTrue();
+		assertThat(memberJpaRepository.findByUsername_Querydsl("bloomRenamed")).containsExactly(member);
+	}
+
+	@Test
+	void missesStillQueryUnlessShortCircuitIsEnabled() {
+		double missesBefore = count("miss");
+
+		assertThat(memberJpaRepository.findByUsername("bloom-no-such-member")).isEmpty();
+
+		assertThat(count("miss") - missesBefore).isEqualTo(1);
+	}
+
+	@Test
+	void nullUsernameSkipsFilter() {
+		usernameFilter.rebuild();
+		double missesBefore = count("miss");
+
+		assertThat(usernameFilter.mightContain(null)).isTrue();
+		assertThat(memberJpaRepository.findByUsername(null)).isEmpty();
+
+		assertThat(count("miss")).isEqualTo(missesBefore);
+	}
+
+	@Test
+	void renameOutsideHibernateIsCountedAsFalseNegative() {
+		Member member = new Member("bloomBefore", 10);
+		em.persist(member);
+		em.flush();
+		em.createQuery("update Member m set m.username = 'bloomJpql' where m.id = :id")
+			.setParameter("id", member.getId())
+			.executeUpdate();
+		em.clear();
+		double falseNegativesBefore = count("false_negative");
+
+		assertThat(memberJpaRepository.findByUsername("bloomJpql")).hasSize(1);
+
+		assertThat(count("false_negative") - falseNegativesBefore).isEqualTo(1);
+	}
+
+	private double count(String result) {
+		return meterRegistry.get("member.username_filter.lookups").tag("result", result).counter().count();
+	}
+}
@@ -0,0 +1,83 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * /v1/members/stream 은 Tomcat 이 아닌 MemberStreamServer 의 포트에서 NDJSON 으로 응답한다.
+ * R2DBC 는 JPA 와 다른 커넥션을 쓰므로 데이터를 커밋한 뒤 요청한다.
+ */
+@SpringBootTest
+class MemberStreamServerTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	@Autowired
+	MemberStreamServer memberStreamServer;
+
+	HttpClient client = HttpClient.newHttpClient();
+	List<Object> created = new ArrayList<>();
+
+	@BeforeEach
+	void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team team = new Team("streamA");
+			em.persist(team);
+			created.add(team);
+			for (int i = 0; i < 5; i++) {
+				Member member = new Member("stream" + i, 20 + i, team);
+				em.persist(member);
+				created.add(0, member);
+			}
+		});
+	}
+
+	@AfterEach
+	void after() {
+		transactionTemplate.executeWithoutResult(status -> created.forEach(entity -> em.remove(em.merge(entity))));
+	}
+
+	@Test
+	void streamsNdjsonFromReactiveServer() throws Exception {
+		HttpResponse<String> response = get("/v1/members/stream?teamName=streamA&ageGoe=22");
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.headers().firstValue("Content-Type")).hasValue(MediaType.APPLICATION_NDJSON_VALUE);
+		assertThat(response.body().lines())
+			.hasSize(3)
+			.allMatch(line -> line.contains("\"teamName\":\"streamA\""));
+	}
+
+	@Test
+	void unknownPathIsNotFound() throws Exception {
+		assertThat(get("/v1/members").statusCode()).isEqualTo(404);
+	}
+
+	private HttpResponse<String> get(String path) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(
+			URI.create("http://localhost:" + memberStreamServer.getPort() + path)).build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,133 @@
+package study.querydsl.entity;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import study.querydsl.event.ChangeCapturingJPAQueryFactory;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest
+@Transactional
+class TeamTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	ChangeCapturingJPAQueryFactory queryFactory;
+	@Autowired
+	MemberRepository memberRepository;
+
+	@Test
+	void memberCountFollowsChangeTeam() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		Member member1 = new Member("member1", 10, teamA);
+		em.persist(member1);
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		assertThat(teamA.getMemberCount()).isEqualTo(2);
+
+		em.flush();
+		em.clear();
+		assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isEqualTo(2);
+		assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isEqualTo(1);
+
+		Member findMember = em.find(Member.class, member1.getId());
+		findMember.changeTeam(em.find(Team.class, teamB.getId()));
+		em.flush();
+		em.clear();
+		assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isEqualTo(1);
+		assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isEqualTo(2);
+
+		em.remove(em.find(Member.class, member1.getId()));
+		em.flush();
+		em.clear();
+		assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isEqualTo(1);
+	}
+
+	@Test
+	void memberCountAfterBulkUpdate() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		for (int i = 0; i < 5; i++) {
+			em.persist(new Member("member" + i, i * 10, teamA));
+		}
+		em.flush();
+
+		queryFactory.update(member)
+			.set(member.team, teamB)
+			.where(member.team.eq(teamA), member.age.goe(20))
+			.execute();
+		em.clear();
+
+		assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isEqualTo(2);
+		assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isEqualTo(3);
+	}
+
+	@Test
+	void memberCountAfterBulkReleaseAndDelete() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		for (int i = 0; i < 6; i++) {
+			em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+		}
+		em.flush();
+
+		queryFactory.update(member)
+			.setNull(member.team)
+			.where(member.age.goe(40))
+			.execute();
+		queryFactory.delete(member)
+			.where(member.age.lt(20))
+			.execute();
+		em.clear();
+
+		assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isEqualTo(1);
+		assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isEqualTo(1);
+	}
+
+	@Test
+	void bulkTeamChangeRequiresTeamValue() {
+		assertThatThrownBy(() -> queryFactory.update(member).set(member.team, member.team))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void membersAreNotHydratedForSizeOrPaging() {
+		Team team = new Team("largeTeam");
+		em.persist(team);
+		for (int i = 0; i < 30; i++) {
+			em.persist(new Member("member" + i, i, team));
+		}
+		em.flush();
+		em.clear();
+
+		Team findTeam = em.find(Team.class, team.getId());
+		assertThat(findTeam.getMembers().size()).isEqualTo(30);
+		assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+
+		Slice<Member> page = memberRepository.findByTeamId(team.getId(),
+			PageRequest.of(1, 10, Sort.by("age")));
+		assertThat(page.getContent()).extracting("age").containsExactly(10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+		assertThat(page.hasNext()).isTrue();
+		assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+	}
+}
@@ -0,0 +1,179 @@
+package study.querydsl.event;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+class EntityChangeBusTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	@Autowired
+	EntityChangeBus changeBus;
+	@Autowired
+	ChangeCapturingJPAQueryFactory queryFactory;
+
+	List<List<EntityChangeEvent>> batches = new CopyOnWriteArrayList<>();
+	Runnable unsubscribe;
+
+	@BeforeEach
+	void before() {
+		unsubscribe = changeBus.subscribe(batches::add);
+	}
+
+	@AfterEach
+	void after() {
+		unsubscribe.run();
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.delete(member).where(member.username.startsWith("event")).execute();
+			em.createQuery("delete from Team t where t.name like 'event%'").executeUpdate();
+		});
+	}
+
+	@Test
+	void publishesOneBatchAfterCommit() {
+		Long memberId = transactionTemplate.execute(status -> {
+			Team teamA = new Team("eventTeamA");
+			Team teamB = new Team("eventTeamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			Member member = new Member("event1", 10, teamA);
+			em.persist(member);
+			em.flush();
+
+			member.changeTeam(teamB);
+			em.flush();
+			assertThat(batches).isEmpty();
+			return member.getId();
+		});
+
+		assertThat(batches).hasSize(1);
+		List<EntityChangeEvent> batch = batches.get(0);
+		assertThat(batch).extracting("type")
+			.containsExactly(EntityChangeEvent.Type.INSERT, EntityChangeEvent.Type.INSERT,
+				EntityChangeEvent.Type.INSERT, EntityChangeEvent.Type.UPDATE);
+		EntityChangeEvent update = batch.get(3);
+		assertThat(update.getEntityType()).isEqualTo(Member.class);
+		assertThat(update.getEntityId()).isEqualTo(memberId);
+		assertThat(update.getChangedFields()).containsExactly("team");
+	}
+
+	@Test
+	void bulkUpdateReportsAffectedIdRangeWhenRequested() {
+		List<List<EntityChangeEvent>> rangeBatches = new CopyOnWriteArrayList<>();
+		Runnable unsubscribeRange = changeBus.subscribeWithIdRange(rangeBatches::add);
+		List<Long> ids = transactionTemplate.execute(status -> {
+			Member member1 = new Member("event1", 10);
+			Member member2 = new Member("event2", 20);
+			Member member3 = new Member("event3", 30);
+			em.persist(member1);
+			em.persist(member2);
+			em.persist(member3);
+			return List.of(member1.getId(), member2.getId(), member3.getId());
+		});
+		batches.clear();
+
+		transactionTemplate.executeWithoutResult(status -> queryFactory
+			.update(member)
+			.set(member.age, 99)
+			.where(member.username.in("event2", "event3"))
+			.execute());
+		unsubscribeRange.run();
+
+		assertThat(rangeBatches).hasSize(2);
+		EntityChangeEvent event = rangeBatches.get(1).get(0);
+		assertThat(event.getType()).isEqualTo(EntityChangeEvent.Type.BULK_UPDATE);
+		assertThat(event.getChangedFields()).containsExactly("age");
+		assertThat(event.getMinId()).isEqualTo(ids.get(1));
+		assertThat(event.getMaxId()).isEqualTo(ids.get(2));
+	}
+
+	@Test
+	void bulkUpdateWithoutRangeSubscriberHasNoIdRange() {
+		transactionTemplate.executeWithoutResult(status -> em.persist(new Member("event1", 10)));
+		batches.clear();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.update(member).set(member.age, 99).where(member.username.eq("event1")).execute();
+			queryFactory.update(member).set(member.age, 99).where(member.username.eq("event-none")).execute();
+		});
+
+		assertThat(batches).hasSize(1);
+		assertThat(batches.get(0)).hasSize(1);
+		EntityChangeEvent event = batches.get(0).get(0);
+		assertThat(event.getType()).isEqualTo(EntityChangeEvent.Type.BULK_UPDATE);
+		assertThat(event.hasIdRange()).isFalse();
+	}
+
+	@Test
+	void lockedBulkChangesReportIdRangeFromLockedRows() {
+		List<Long> ids = transactionTemplate.execute(status -> {
+			Team team = new Team("eventTeamA");
+			em.persist(team);
+			Member member1 = new Member("event1", 10, team);
+			Member member2 = new Member("event2", 20, team);
+			em.persist(member1);
+			em.persist(member2);
+			return List.of(member1.getId(), member2.getId());
+		});
+		batches.clear();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.update(member).setNull(member.team).where(member.username.startsWith("event")).execute();
+			queryFactory.delete(member).where(member.username.eq("event2")).execute();
+		});
+
+		assertThat(batches).hasSize(1);
+		assertThat(batches.get(0)).extracting("type", "minId", "maxId")
+			.containsExactly(
+				tuple(EntityChangeEvent.Type.BULK_UPDATE, ids.get(0), ids.get(1)),
+				tuple(EntityChangeEvent.Type.BULK_DELETE, ids.get(1), ids.get(1)));
+	}
+
+	@Test
+	void rollbackPublishesNothing() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.persist(new Member("event1", 10));
+			em.flush();
+			status.setRollbackOnly();
+		});
+
+		assertThat(batches).isEmpty();
+	}
+
+	@Test
+	void innerRequiresNewPublishesOnItsOwnCommit() {
+		TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			em.persist(new Member("event1", 10));
+			em.flush();
+			requiresNew.executeWithoutResult(inner -> em.persist(new Member("event2", 20)));
+			assertThat(batches).hasSize(1);
+			status.setRollbackOnly();
+		});
+
+		assertThat(batches).hasSize(1);
+		assertThat(batches.get(0)).extracting("type").containsExactly(EntityChangeEvent.Type.INSERT);
+	}
+}
@@ -0,0 +1,132 @@
+package study.querydsl.repository;
+
+import static com.querydsl.jpa.JPAExpressions.*;
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class MemberAnalyticsRepositoryTest {
+
+	@Autowired
+	EntityManager em;
+	@Autowired
+	MemberAnalyticsRepository memberAnalyticsRepository;
+
+	JPAQueryFactory queryFactory;
+
+	@BeforeEach
+	void before() {
+		queryFactory = new JPAQueryFactory(em);
+		Team teamA = new Team("analyticsA");
+		Team teamB = new Team("analyticsB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 40, teamB));
+		em.persist(new Member("member6", 50));
+		em.flush();
+	}
+
+	@Test
+	void findTeamAgeRanks() {
+		List<MemberRankDto> result = memberAnalyticsRepository.findTeamAgeRanks("analyticsB");
+
+		assertThat(result).extracting("username").containsExactly("member4", "member5", "member3");
+		assertThat(result).extracting("ageRank").containsExactly(1L, 1L, 3L);
+		assertThat(result).extracting("agePercentile").containsExactly(0.5, 0.5, 0.0);
+	}
+
+	@Test
+	void findOldestPerTeam() {
+		QMember memberSub = new QMember("memberSub");
+
+		List<MemberTeamDto> expected = teamMembers()
+			.where(member.age.eq(select(memberSub.age.max())
+				.from(memberSub)
+				.where(memberSub.team.eq(member.team))))
+			.fetch();
+
+		assertThat(memberAnalyticsRepository.findOldestPerTeam())
+			.containsExactlyInAnyOrderElementsOf(expected)
+			.extracting("username").contains("member2", "member4", "member5");
+	}
+
+	@Test
+	void findAtOrAboveTeamAverage() {
+		QMember memberSub = new QMember("memberSub");
+
+		List<MemberTeamDto> expected = teamMembers()
+			.where(member.age.goe(select(memberSub.age.avg())
+				.from(memberSub)
+				.where(memberSub.team.eq(member.team))))
+			.fetch();
+
+		assertThat(memberAnalyticsRepository.findAtOrAboveTeamAverage())
+			.containsExactlyInAnyOrderElementsOf(expected)
+			.extracting("username").contains("member2", "member4", "member5");
+	}
+
+	/**
+	 * 나이가 겹치는 회원이 많은 큰 팀에서도 윈도우 함수 버전이 상관 서브쿼리와 같은 결과를 내는지 확인 (시간 비교는 MemberAnalyticsBenchmark)
+	 */
+	@Test
+	void windowFunctionMatchesCorrelatedSubquery() {
+		Team benchTeam = new Team("analyticsBench");
+		em.persist(benchTeam);
+		for (int i = 0; i < 3000; i++) {
+			em.persist(new Member("bench" + i, i % 90, benchTeam));
+		}
+		em.flush();
+		em.clear();
+
+		QMember memberSub = new QMember("memberSub");
+		List<MemberTeamDto> aboveAverage = teamMembers()
+			.where(member.age.goe(select(memberSub.age.avg())
+				.from(memberSub)
+				.where(memberSub.team.eq(member.team))))
+			.fetch();
+		List<MemberTeamDto> oldest = teamMembers()
+			.where(member.age.eq(select(memberSub.age.max())
+				.from(memberSub)
+				.where(memberSub.team.eq(member.team))))
+			.fetch();
+
+		assertThat(memberAnalyticsRepository.findAtOrAboveTeamAverage())
+			.containsExactlyInAnyOrderElementsOf(aboveAverage);
+		assertThat(memberAnalyticsRepository.findOldestPerTeam())
+			.containsExactlyInAnyOrderElementsOf(oldest);
+	}
+
+	private JPAQuery<MemberTeamDto> teamMembers() {
+		return queryFactory
+			.select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+			.from(member)
+			.join(member.team, team);
+	}
+}
@@ -0,0 +1,77 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class MemberColumnarRepositoryTest {
+
+	@Autowired
+	EntityManager em;
+	@Autowired
+	MemberRepository memberRepository;
+	@Autowired
+	MemberColumnarRepository memberColumnarRepository;
+
+	@BeforeEach
+	void before() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		for (int i = 0; i < 1000; i++) {
+			Team selectedTeam = i % 3 == 0 ? null : i % 3 == 1 ? teamA : teamB;
+			em.persist(new Member("member" + (i % 400), i % 80, selectedTeam));
+		}
+		em.flush();
+		memberColumnarRepository.rebuild();
+	}
+
+	@Test
+	void searchMatchesJpaRepository() {
+		assertSameResult(condition(null, null, null, null));
+		assertSameResult(condition("member7", null, null, null));
+		assertSameResult(condition("member7", "teamA", null, null));
+		assertSameResult(condition(null, "teamB", 20, 40));
+		assertSameResult(condition(null, "teamC", null, null));
+		assertSameResult(condition(null, "", 35, null));
+		assertSameResult(condition(null, null, null, 10));
+		assertSameResult(condition("member17", null, 10, 30));
+		assertSameResult(condition(null, "teamA", 50, 40));
+		assertSameResult(keyCondition("MEMBER-7", null));
+		assertSameResult(keyCondition(" member_17 ", "teamB"));
+		assertSameResult(keyCondition("member 400", null));
+	}
+
+	private void assertSameResult(MemberSearchCondition condition) {
+		assertThat(memberColumnarRepository.search(condition))
+			.containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+	}
+
+	private MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername(username);
+		condition.setTeamName(teamName);
+		condition.setAgeGoe(ageGoe);
+		condition.setAgeLoe(ageLoe);
+		return condition;
+	}
+
+	private MemberSearchCondition keyCondition(String usernameKey, String teamName) {
+		MemberSearchCondition condition = condition(null, teamName, null, null);
+		condition.setUsernameKey(usernameKey);
+		return condition;
+	}
+}
@@ -1,17 +1,25 @@
 package study.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
 
 @SpringBootTest
 @Transactional
@@ -77,4 +85,163 @@ class MemberJpaRepositoryTest {
 	// 	List<MemberTeamDto> result = memberJpaRepository.searchByBuilder(condition);
 	// 	assertThat(result).extracting("username").containsExactly("member4");
 	// }
+
+	@Test
+	void readOnlyQueriesSkipDirtyChecking() {
+		Member member = new Member("readOnly1", 10);
+		memberJpaRepository.save(member);
+		em.flush();
+		em.clear();
+
+		Session session = em.unwrap(Session.class);
+		List<Member> result = memberJpaRepository.findByUsername_QuerydslReadOnly("readOnly1");
+		assertThat(result).hasSize(1);
+		assertThat(session.isReadOnly(result.get(0))).isTrue();
+		assertThat(memberJpaRepository.findAll_QuerydslReadOnly()).allMatch(session::isReadOnly);
+
+		result.get(0).setAge(99);
+		em.flush();
+		em.clear();
+		assertThat(memberJpaRepository.findById(member.getId()).get().getAge()).isEqualTo(10);
+	}
+
+	@Test
+	void defaultQueriesReturnManagedEntities() {
+		Member member = new Member("managed1", 10);
+		memberJpaRepository.save(member);
+		em.flush();
+		em.clear();
+
+		Session session = em.unwrap(Session.class);
+		List<Member> result = memberJpaRepository.findByUsername_Querydsl("managed1");
+		assertThat(session.isReadOnly(result.get(0))).isFalse();
+		assertThat(memberJpaRepository.findAll()).noneMatch(session::isReadOnly);
+		assertThat(memberJpaRepository.findByUsername("managed1")).noneMatch(session::isReadOnly);
+
+		result.get(0).setAge(99);
+		em.flush();
+		em.clear();
+		assertThat(memberJpaRepository.findById(member.getId()).get().getAge()).isEqualTo(99);
+	}
+
+	@Test
+	void searchBatchTest() {
+		Team teamA = new Team("batchA");
+		Team teamB = new Team("batchB");
+		Team teamC = new Team("batchC");
+		em.persist(teamA);
+		em.persist(teamB);
+		em.persist(teamC);
+		for (int i = 0; i < 12; i++) {
+			Team selectedTeam = i % 3 == 0 ? teamA : i % 3 == 1 ? teamB : teamC;
+			em.persist(new Member("batch" + i, i * 10, selectedTeam));
+		}
+
+		List<MemberSearchCondition> conditions = List.of(
+			condition(null, "batchA", 20, 90),
+			condition(null, "batchB", 20, 90),
+			condition("batch5", null, null, null),
+			condition("batch8", null, null, null),
+			condition(null, "batchC", null, 50),
+			condition(null, "batchA", 20, 90));
+
+		List<List<MemberTeamDto>> result = memberJpaRepository.searchBatch(conditions);
+
+		assertThat(result).hasSize(conditions.size());
+		for (int i = 0; i < conditions.size(); i++) {
+			assertThat(result.get(i)).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(conditions.get(i)));
+		}
+		assertThat(result.get(0)).extracting("username").containsExactlyInAnyOrder("batch3", "batch6", "batch9");
+	}
+
+	@Test
+	void searchBatchChunksMergedInLists() {
+		Team team = new Team("chunkTeam");
+		em.persist(team);
+		for (int i = 0; i < MemberJpaRepository.MAX_BATCH_SIZE; i++) {
+			em.persist(new Member("chunk" + i, i, team));
+		}
+
+		List<MemberSearchCondition> conditions = new ArrayList<>();
+		for (int i = 0; i < MemberJpaRepository.MAX_BATCH_SIZE; i++) {
+			conditions.add(condition("chunk" + i, null, null, null));
+		}
+		List<List<MemberTeamDto>> result = memberJpaRepository.searchBatch(conditions);
+
+		for (int i = 0; i < conditions.size(); i++) {
+			assertThat(result.get(i)).extracting("username").containsExactly("chunk" + i);
+		}
+	}
+
+	@Test
+	void searchBatchRejectsNullsAndOversizedBatches() {
+		List<MemberSearchCondition> withNull = new ArrayList<>();
+		withNull.add(condition("member1", null, null, null));
+		withNull.add(null);
+		assertThatThrownBy(() -> memberJpaRepository.searchBatch(withNull))
+			.isInstanceOf(IllegalArgumentException.class);
+
+		List<MemberSearchCondition> oversized = new ArrayList<>();
+		for (int i = 0; i <= MemberJpaRepository.MAX_BATCH_SIZE; i++) {
+			oversized.add(condition("member" + i, null, null, null));
+		}
+		assertThatThrownBy(() -> memberJpaRepository.searchBatch(oversized))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void usernameKeyFollowsUsername() {
+		Member keyMember = new Member("Key_Member 1", 10);
+		memberJpaRepository.save(keyMember);
+		em.flush();
+		assertThat(keyMember.getUsernameKey()).isEqualTo("keymember1");
+
+		keyMember.setUsername("KEY-MEMBER-2");
+		em.flush();
+		assertThat(keyMember.getUsernameKey()).isEqualTo("keymember2");
+
+		// 변경을 기록하지 않는 평범한 JPAQueryFactory 와 JPQL 벌크 update 에도 DB 가 key 를 다시 계산한다.
+		new JPAQueryFactory(em).update(member)
+			.set(member.username, member.username.concat("_Ä"))
+			.where(member.id.eq(keyMember.getId()))
+			.execute();
+		em.clear();
+		Member updated = memberJpaRepository.findById(keyMember.getId()).get();
+		assertThat(updated.getUsername()).isEqualTo("KEY-MEMBER-2_Ä");
+		assertThat(updated.getUsernameKey()).isEqualTo("keymember2ä");
+
+		em.createQuery("update Member m set m.username = 'Key Member 3' where m.id = :id")
+			.setParameter("id", keyMember.getId())
+			.executeUpdate();
+		em.clear();
+		assertThat(memberJpaRepository.findById(keyMember.getId()).get().getUsernameKey()).isEqualTo("keymember3");
+	}
+
+	@Test
+	void searchByUsernameKey() {
+		Team team = new Team("keyTeam");
+		em.persist(team);
+		em.persist(new Member("Key.Search", 10, team));
+		em.persist(new Member("key search", 20, team));
+		em.persist(new Member("keysearcher", 30, team));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernameKey("KEY_SEARCH");
+
+		assertThat(memberJpaRepository.search(condition)).extracting("username")
+			.containsExactlyInAnyOrder("Key.Search", "key search");
+		assertThat(memberJpaRepository.searchByBuilder(condition)).extracting("username")
+			.containsExactlyInAnyOrder("Key.Search", "key search");
+		condition.setAgeGoe(15);
+		assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("key search");
+	}
+
+	private MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername(username);
+		condition.setTeamName(teamName);
+		condition.setAgeGoe(ageGoe);
+		condition.setAgeLoe(ageLoe);
+		return condition;
+	}
 }
@@ -0,0 +1,108 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberAgeStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 파티션은 별도 커넥션에서 조회하므로 데이터를 커밋한 뒤 단일 쿼리 결과와 비교한다.
+ */
+@SpringBootTest
+class MemberPartitionedQueryExecutorTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	@Autowired
+	MemberPartitionedQueryExecutor executor;
+
+	JPAQueryFactory queryFactory;
+	List<Object> created = new ArrayList<>();
+
+	@BeforeEach
+	void before() {
+		queryFactory = new JPAQueryFactory(em);
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("partitionA");
+			Team teamB = new Team("partitionB");
+			em.persist(teamA);
+			em.persist(teamB);
+			created.add(teamA);
+			created.add(teamB);
+			for (int i = 0; i < 50; i++) {
+				Member member = new Member("partition" + i, i, i % 2 == 0 ? teamA : teamB);
+				em.persist(member);
+				created.add(0, member);
+			}
+		});
+	}
+
+	@AfterEach
+	void after() {
+		transactionTemplate.executeWithoutResult(status -> created.forEach(entity -> em.remove(em.merge(entity))));
+	}
+
+	@Test
+	void fetchAndCount() {
+		List<String> expected = queryFactory.select(member.username)
+			.from(member)
+			.leftJoin(member.team, team)
+			.where(team.name.eq("partitionA"), member.age.goe(10))
+			.orderBy(member.id.asc())
+			.fetch();
+
+		assertThat(executor.fetch(member.username, team.name.eq("partitionA"), member.age.goe(10)))
+			.containsExactlyElementsOf(expected);
+		assertThat(executor.count(team.name.eq("partitionA"), member.age.goe(10))).isEqualTo(expected.size());
+	}
+
+	@Test
+	void ageStats() {
+		MemberAgeStatsDto stats = executor.ageStats(team.name.startsWith("partition"));
+
+		assertThat(stats.getCount()).isEqualTo(50);
+		assertThat(stats.getSum()).isEqualTo(1225);
+		assertThat(stats.getMin()).isEqualTo(0);
+		assertThat(stats.getMax()).isEqualTo(49);
+		assertThat(stats.getAvg()).isEqualTo(24.5);
+	}
+
+	@Test
+	void ageStatsByTeam() {
+		Map<String, MemberAgeStatsDto> result = executor.ageStatsByTeam(team.name.startsWith("partition"));
+
+		List<Tuple> expected = queryFactory.select(team.name, member.age.avg())
+			.from(member)
+			.join(member.team, team)
+			.where(team.name.startsWith("partition"))
+			.groupBy(team.name)
+			.fetch();
+
+		assertThat(result).hasSize(2);
+		for (Tuple tuple : expected) {
+			assertThat(result.get(tuple.get(team.name)).getAvg()).isEqualTo(tuple.get(member.age.avg()));
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * R2DBC 는 JPA 와 다른 커넥션을 쓰므로 데이터를 커밋한 뒤 MemberRepository.search 결과와 비교한다.
+ */
+@SpringBootTest
+class MemberReactiveRepositoryTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	@Autowired
+	MemberRepository memberRepository;
+	@Autowired
+	MemberReactiveRepository memberReactiveRepository;
+
+	List<Object> created = new ArrayList<>();
+
+	@BeforeEach
+	void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("reactiveA");
+			Team teamB = new Team("reactiveB");
+			em.persist(teamA);
+			em.persist(teamB);
+			created.add(teamA);
+			created.add(teamB);
+			for (int i = 0; i < 20; i++) {
+				Member member = new Member("reactive" + i, i * 5, i % 2 == 0 ? teamA : teamB);
+				em.persist(member);
+				created.add(0, member);
+			}
+		});
+	}
+
+	@AfterEach
+	void after() {
+		transactionTemplate.executeWithoutResult(status -> created.forEach(entity -> em.remove(em.merge(entity))));
+	}
+
+	@Test
+	void sameResultAsJpaSearch() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("reactiveB");
+		condition.setAgeGoe(20);
+		condition.setAgeLoe(80);
+
+		List<MemberTeamDto> result = memberReactiveRepository.search(condition).collectList().block();
+
+		assertThat(result).usingRecursiveFieldByFieldElementComparator()
+			.containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+		assertThat(result).extracting("teamName").containsOnly("reactiveB");
+	}
+
+	@Test
+	void emptyConditionMatchesUsernameOnly() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername("reactive3");
+		condition.setTeamName("");
+
+		assertThat(memberReactiveRepository.search(condition).collectList().block())
+			.extracting("username", "age")
+			.containsExactly(tuple("reactive3", 15));
+	}
+
+	@Test
+	void requestsOnlyWhatIsConsumed() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("reactiveA");
+
+		assertThat(memberReactiveRepository.search(condition).take(3).collectList().block()).hasSize(3);
+	}
+
+	@Test
+	void placeholdersBecomeNamedParameters() {
+		assertThat(MemberReactiveRepository.toNamedParameters(
+			"select * from MEMBER m where m.USERNAME = ? and m.AGE between ? and ? and m.USERNAME <> '?'"))
+			.isEqualTo("select * from MEMBER m where m.USERNAME = :p0 and m.AGE between :p1 and :p2"
+				+ " and m.USERNAME <> '?'");
+	}
+}
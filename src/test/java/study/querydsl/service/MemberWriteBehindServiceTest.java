@@ -0,0 +1,105 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * flush 는 별도 트랜잭션으로 커밋되므로 데이터를 커밋해 두고 끝나면 지운다.
+ * 주기적 flush 가 대기열을 먼저 비우지 않도록 flush-interval 을 길게 잡는다.
+ */
+@SpringBootTest(properties = "querydsl.write-behind.flush-interval=PT1H")
+class MemberWriteBehindServiceTest {
+
+	@PersistenceContext
+	EntityManager em;
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	@Autowired
+	MemberWriteBehindService writeBehindService;
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	Team teamA;
+	Team teamB;
+	List<Member> members = new ArrayList<>();
+
+	@BeforeEach
+	void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			teamA = new Team("writeBehindA");
+			teamB = new Team("writeBehindB");
+			em.persist(teamA);
+			em.persist(teamB);
+			for (int i = 0; i < 3; i++) {
+				Member member = new Member("writeBehind" + i, i * 10, teamA);
+				em.persist(member);
+				members.add(member);
+			}
+		});
+	}
+
+	@AfterEach
+	void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			members.forEach(member -> em.remove(em.find(Member.class, member.getId())));
+			em.remove(em.find(Team.class, teamA.getId()));
+			em.remove(em.find(Team.class, teamB.getId()));
+		});
+	}
+
+	@Test
+	void coalescesUpdatesPerMember() {
+		Long memberId = members.get(0).getId();
+		writeBehindService.changeAge(memberId, 11);
+		writeBehindService.changeTeam(memberId, teamB.getId());
+		writeBehindService.changeAge(memberId, 12);
+		writeBehindService.changeAge(members.get(1).getId(), 21);
+
+		assertThat(writeBehindService.getPendingCount()).isEqualTo(2);
+		assertThat(meterRegistry.get("member.write_behind.pending").gauge().value()).isEqualTo(2);
+
+		writeBehindService.flush();
+
+		assertThat(writeBehindService.getPendingCount()).isZero();
+		assertThat(meterRegistry.get("member.write_behind.flush").timer().count()).isPositive();
+		transactionTemplate.executeWithoutResult(status -> {
+			Member findMember = em.find(Member.class, memberId);
+			assertThat(findMember.getAge()).isEqualTo(12);
+			assertThat(findMember.getTeam().getId()).isEqualTo(teamB.getId());
+			assertThat(em.find(Member.class, members.get(1).getId()).getAge()).isEqualTo(21);
+			assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isEqualTo(2);
+			assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isEqualTo(1);
+		});
+	}
+
+	@Test
+	void moveBackToSameTeamDoesNotTouchMemberCount() {
+		Long memberId = members.get(2).getId();
+		writeBehindService.changeTeam(memberId, teamB.getId());
+		writeBehindService.changeTeam(memberId, teamA.getId());
+
+		writeBehindService.flush();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			assertThat(em.find(Member.class, memberId).getTeam().getId()).isEqualTo(teamA.getId());
+			assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isEqualTo(3);
+			assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isZero();
+		});
+	}
+}
@@ -0,0 +1,96 @@
+package study.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+class ShardedMemberStoreTest {
+
+	List<DataSource> dataSources = new ArrayList<>();
+	ShardedMemberStore store;
+
+	@BeforeEach
+	void before() {
+		String database = UUID.randomUUID().toString();
+		for (int i = 0; i < 3; i++) {
+			dataSources.add(new DriverManagerDataSource(
+				"jdbc:h2:mem:" + database + "-" + i + ";DB_CLOSE_DELAY=-1", "sa", ""));
+		}
+		store = new ShardedMemberStore(dataSources);
+	}
+
+	@AfterEach
+	void after() throws Exception {
+		store.close();
+		for (DataSource dataSource : dataSources) {
+			new JdbcTemplate(dataSource).execute("shutdown");
+		}
+	}
+
+	@Test
+	void membersAreColocatedWithTheirTeam() {
+		Long teamA = store.saveTeam("teamA");
+		for (int i = 0; i < 10; i++) {
+			store.saveMember("member" + i, i, teamA);
+		}
+
+		int shard = store.shardOfTeamName("teamA");
+		assertThat(teamA % store.shardCount()).isEqualTo(shard);
+		assertThat(new JdbcTemplate(dataSources.get(shard))
+			.queryForObject("select count(*) from member", Long.class)).isEqualTo(10);
+	}
+
+	@Test
+	void searchRoutesOrFansOutAndPages() {
+		Long teamA = store.saveTeam("teamA");
+		Long teamB = store.saveTeam("teamB");
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			Long teamId = i % 3 == 0 ? null : i % 3 == 1 ? teamA : teamB;
+			ids.add(store.saveMember("member" + i, i, teamId));
+		}
+
+		MemberSearchCondition all = new MemberSearchCondition();
+		assertThat(store.search(all)).extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(ids);
+		assertThat(store.search(all, 5, 10)).extracting(MemberTeamDto::getMemberId)
+			.containsExactlyElementsOf(ids.subList(5, 15));
+
+		MemberSearchCondition teamCondition = new MemberSearchCondition();
+		teamCondition.setTeamName("teamB");
+		teamCondition.setAgeGoe(10);
+		assertThat(store.search(teamCondition, 1, 3)).extracting("username")
+			.containsExactly("member14", "member17", "member20");
+
+		MemberSearchCondition ageCondition = new MemberSearchCondition();
+		ageCondition.setAgeLoe(5);
+		assertThat(store.search(ageCondition)).extracting("age").containsExactly(0, 1, 2, 3, 4, 5);
+	}
+
+	@Test
+	void changeTeamMovesMemberAcrossShards() {
+		Long teamA = store.saveTeam("teamA");
+		Long teamB = store.saveTeam("teamB");
+		Long memberId = store.saveMember("member1", 10, teamA);
+
+		store.changeTeam(memberId, teamB);
+
+		assertThat(store.findMember(memberId)).get().extracting("teamName").isEqualTo("teamB");
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		assertThat(store.search(condition)).isEmpty();
+		assertThat(store.search(new MemberSearchCondition())).hasSize(1);
+	}
+}
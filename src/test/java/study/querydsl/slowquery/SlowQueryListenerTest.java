@@ -0,0 +1,83 @@
+package study.querydsl.slowquery;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * threshold 를 0 으로 두어 모든 문장을 느린 쿼리로 잡는다. 다른 쿼리가 모양을 밀어내지 않도록 주기 작업은 끈다.
+ */
+@SpringBootTest(properties = {
+	"querydsl.slow-query.threshold=0ms",
+	"querydsl.slow-query.max-shapes=" + SlowQueryListenerTest.MAX_SHAPES,
+	"querydsl.scheduling.enabled=false",
+	"management.endpoints.web.exposure.include=slowqueries"})
+@AutoConfigureMockMvc
+class SlowQueryListenerTest {
+
+	static final int MAX_SHAPES = 5;
+
+	@Autowired
+	SlowQueryListener slowQueryListener;
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	@Autowired
+	MockMvc mockMvc;
+
+	@BeforeEach
+	void before() {
+		slowQueryListener.reset();
+	}
+
+	@Test
+	void capturesPlanAndRepositoryMethod() throws Exception {
+		memberJpaRepository.findByUsername("slowQueryMember");
+
+		QueryShapeStats stats = slowQueryListener.getShapes().stream()
+			.filter(shape -> shape.getFingerprint().startsWith("select ") && shape.getFingerprint().contains(" from member "))
+			.findFirst()
+			.orElseThrow();
+		SlowQuerySample sample = stats.getSlowSample();
+		assertThat(sample).isNotNull();
+		assertThat(sample.getSql()).contains("'slowQueryMember'");
+		assertThat(sample.getPlan()).isNotBlank().doesNotStartWith("explain failed");
+		assertThat(sample.getOrigin()).startsWith(MemberJpaRepository.class.getName() + ".findByUsername:");
+
+		mockMvc.perform(get("/actuator/slowqueries"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[*].fingerprint", hasItem(stats.getFingerprint())))
+			.andExpect(jsonPath("$[*].slowSample.origin", hasItem(sample.getOrigin())))
+			.andExpect(jsonPath("$[*].slowCount", everyItem(greaterThanOrEqualTo(1))));
+	}
+
+	@Test
+	void shapesAreBoundedByMaxShapes() throws Exception {
+		for (int i = 0; i < MAX_SHAPES * 3; i++) {
+			// 별칭 안의 숫자는 식별자로 남으므로 반복마다 다른 모양이 된다.
+			jdbcTemplate.queryForObject("select count(*) as shape" + i + " from member", Long.class);
+			assertThat(slowQueryListener.getShapes()).hasSizeLessThanOrEqualTo(MAX_SHAPES);
+		}
+
+		assertThat(slowQueryListener.getShapes())
+			.hasSize(MAX_SHAPES)
+			.extracting(QueryShapeStats::getFingerprint)
+			.contains("select count(*) as shape" + (MAX_SHAPES * 3 - 1) + " from member");
+
+		mockMvc.perform(delete("/actuator/slowqueries"))
+			.andExpect(status().is2xxSuccessful());
+		assertThat(slowQueryListener.getShapes()).isEmpty();
+	}
+}
@@ -0,0 +1,66 @@
+package study.querydsl.slowquery;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SqlFingerprintTest {
+
+	@Test
+	void literalsAndPlaceholdersHaveSameShape() {
+		String prepared = "select member0_.member_id as member_i1_1_ from member member0_ where member0_.username=?";
+		String literal = "select member0_.member_id as member_i1_1_ from member member0_ where member0_.username='member1'";
+
+		assertThat(SqlFingerprint.of(literal)).isEqualTo(SqlFingerprint.of(prepared));
+		assertThat(SqlFingerprint.of(prepared))
+			.isEqualTo("select member0_.member_id as member_i1_1_ from member member0_ where member0_.username=?");
+	}
+
+	@Test
+	void numbersAreStrippedButIdentifiersKept() {
+		assertThat(SqlFingerprint.of("select t1.age from member t1 where t1.age between 10 and -2.5e3 limit 20"))
+			.isEqualTo("select t1.age from member t1 where t1.age between ? and ? limit ?");
+		assertThat(SqlFingerprint.of("update team set member_count=member_count-1 where team_id=7"))
+			.isEqualTo("update team set member_count=member_count-? where team_id=?");
+	}
+
+	@Test
+	void quotesCommentsAndWhitespace() {
+		String sql = "/* select m from Member m */ SELECT *\n\tFROM member\n"
+			+ "WHERE username = 'it''s 1' -- trailing\n AND age > 3";
+
+		assertThat(SqlFingerprint.of(sql)).isEqualTo("select * from member where username = ? and age > ?");
+	}
+
+	@Test
+	void inListsCollapseRegardlessOfLength() {
+		assertThat(SqlFingerprint.of("select * from member where member_id in (1, 2, 3)"))
+			.isEqualTo(SqlFingerprint.of("select * from member where member_id in (?)"))
+			.isEqualTo("select * from member where member_id in (?+)");
+	}
+
+	@Test
+	void functionArgumentsAreNotInLists() {
+		assertThat(SqlFingerprint.of("select * from member where lower(username) = lower('A') and coalesce(?, ?) > 1"
+			+ " and team_id not in(3, 4)"))
+			.isEqualTo("select * from member where lower(username) = lower(?) and coalesce(?, ?) > ?"
+				+ " and team_id not in(?+)");
+	}
+
+	@Test
+	void shapeStatsAreBoundedAndSorted() {
+		QueryShapeStats stats = new QueryShapeStats("select ?");
+		for (int i = 1; i <= QueryShapeStats.SAMPLES * 2; i++) {
+			stats.record(i * 1_000_000L, i > QueryShapeStats.SAMPLES * 2 - 3);
+		}
+
+		QueryShapeStats.Snapshot snapshot = stats.snapshot();
+		assertThat(snapshot.getCount()).isEqualTo(QueryShapeStats.SAMPLES * 2);
+		assertThat(snapshot.getSlowCount()).isEqualTo(3);
+		assertThat(snapshot.getMaxMillis()).isEqualTo(QueryShapeStats.SAMPLES * 2);
+		// 최근 SAMPLES 건(257~512ms)만으로 백분위를 계산한다.
+		assertThat(snapshot.getP50Millis()).isEqualTo(QueryShapeStats.SAMPLES + QueryShapeStats.SAMPLES / 2);
+		assertThat(stats.tryStartCapture(1000, 60_000)).isTrue();
+		assertThat(stats.tryStartCapture(2000, 60_000)).isFalse();
+	}
+}
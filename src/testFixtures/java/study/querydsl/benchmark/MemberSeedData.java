@@ -0,0 +1,45 @@
+package study.querydsl.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import study.querydsl.bloom.UsernameBloomFilter;
+
+/**
+ * 부하 테스트와 JMH 벤치마크가 함께 쓰는 데이터. team 은 TEAMS 개("team1".."team100"), member 는 "member0".. 을
+ * 팀에 고르게 나누고 나이는 0~99 로 돌린다. 두 쪽의 데이터 모양이 어긋나지 않도록 testFixtures 에 하나만 둔다.
+ * JDBC 로 바로 넣으므로 다음 시퀀스 값을 채운 id 뒤로 옮기고 username Bloom filter 를 다시 만든다.
+ */
+public final class MemberSeedData {
+
+	public static final int TEAMS = 100;
+	public static final int AGES = 100;
+	private static final int BATCH = 5_000;
+
+	private MemberSeedData() {
+	}
+
+	public static void seed(ConfigurableApplicationContext context, int members) {
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		List<Object[]> teams = new ArrayList<>();
+		for (long teamId = 1; teamId <= TEAMS; teamId++) {
+			teams.add(new Object[] {teamId, "team" + teamId, members / TEAMS + (teamId <= members % TEAMS ? 1 : 0)});
+		}
+		jdbcTemplate.batchUpdate("insert into team (team_id, name, member_count) values (?, ?, ?)", teams);
+
+		List<Object[]> batch = new ArrayList<>(BATCH);
+		for (int i = 0; i < members; i++) {
+			batch.add(new Object[] {TEAMS + 1L + i, "member" + i, i % AGES, 1L + i % TEAMS});
+			if (batch.size() == BATCH || i == members - 1) {
+				jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)",
+					batch);
+				batch.clear();
+			}
+		}
+		jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (TEAMS + members + 1L));
+		context.getBean(UsernameBloomFilter.class).rebuild();
+	}
+}